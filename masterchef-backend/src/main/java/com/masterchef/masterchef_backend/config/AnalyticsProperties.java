@@ -0,0 +1,38 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Generation analytics rollups, bound from analytics.* in application.yml
+ */
+@Data
+@ConfigurationProperties(prefix = "analytics")
+public class AnalyticsProperties {
+
+    /**
+     * Fold audit batches into generation_rollups
+     */
+    private boolean rollupsEnabled = true;
+
+    /**
+     * Rollup retention per granularity (zero keeps rows forever)
+     */
+    private Duration minuteRetention = Duration.ofDays(2);
+    private Duration hourRetention = Duration.ofDays(90);
+    private Duration dayRetention = Duration.ZERO;
+
+    /**
+     * Upper bound on buckets returned by one time-series query
+     */
+    private int maxPoints = 2000;
+
+    /**
+     * Upper bound on rows returned by one raw drill-down query
+     */
+    private int maxDrillDownRows = 500;
+
+}
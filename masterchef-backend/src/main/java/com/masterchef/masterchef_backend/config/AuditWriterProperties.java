@@ -0,0 +1,53 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Generation audit trail persistence, bound from audit.* in application.yml
+ */
+@Data
+@ConfigurationProperties(prefix = "audit")
+public class AuditWriterProperties {
+
+    /**
+     * SYNC: insert on the request thread (durable when the response is sent)
+     * ASYNC: enqueue into the in-memory buffer, flushed in batches by a background writer
+     */
+    private Mode mode = Mode.ASYNC;
+
+    /**
+     * Ring buffer capacity (records)
+     */
+    private int bufferCapacity = 4096;
+
+    /**
+     * Flush as soon as this many records are buffered
+     */
+    private int batchSize = 200;
+
+    /**
+     * Flush whatever is buffered at least this often
+     */
+    private Duration flushInterval = Duration.ofMillis(500);
+
+    /**
+     * Write records to disk instead of dropping them when the buffer is full or the database is down
+     */
+    private boolean spillToDisk = true;
+
+    /**
+     * Directory for spill files (NDJSON), replayed once the database is reachable
+     * Records the database rejects on replay are kept in its dead-letter subdirectory
+     */
+    private String spillDir = System.getProperty("java.io.tmpdir") + "/masterchef-audit-spill";
+
+    public enum Mode {
+        SYNC,
+        ASYNC
+    }
+
+}
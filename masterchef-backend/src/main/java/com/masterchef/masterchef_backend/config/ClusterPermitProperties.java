@@ -0,0 +1,53 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Cluster-wide LLM concurrency budget, bound from llm.cluster-permits.* in application.yml
+ *
+ * Every backend node must be configured with the same global budget.
+ */
+@Data
+@ConfigurationProperties(prefix = "llm.cluster-permits")
+public class ClusterPermitProperties {
+
+    /**
+     * Disable to fall back to node-local limits only
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum concurrent LLM calls across all nodes
+     */
+    private int globalBudget = 4;
+
+    /**
+     * Permits leased per database round trip
+     */
+    private int batchSize = 1;
+
+    /**
+     * Permits a node keeps cached even when idle
+     */
+    private int minCached = 0;
+
+    /**
+     * Lease lifetime; a crashed node's permits return to the pool after this
+     */
+    private Duration leaseTtl = Duration.ofSeconds(30);
+
+    /**
+     * Cached permits above min-cached are returned after this long without demand
+     */
+    private Duration idleRelease = Duration.ofSeconds(30);
+
+    /**
+     * How long a request waits for a permit before failing fast
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(20);
+
+}
@@ -0,0 +1,46 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * recipe_generations partition maintenance and archival, bound from generation-archive.* in application.yml
+ */
+@Data
+@ConfigurationProperties(prefix = "generation-archive")
+public class GenerationArchiveProperties {
+
+    /**
+     * Archive and drop expired partitions (partitions ahead are always created)
+     */
+    private boolean enabled = true;
+
+    /**
+     * Months kept in PostgreSQL, counting the current month
+     */
+    private int retentionMonths = 12;
+
+    /**
+     * Future monthly partitions kept created in advance
+     */
+    private int monthsAhead = 3;
+
+    /**
+     * Rows per compressed NDJSON segment (one S3 object each)
+     */
+    private int segmentRows = 10_000;
+
+    /**
+     * S3 key prefix; segments go to {prefix}/{yyyy-MM}/segment-00000.ndjson.gz
+     */
+    private String s3Prefix = "archives/recipe_generations";
+
+    /**
+     * A node's claim on a partition expires after this (crashed archival is retried)
+     */
+    private Duration claimTtl = Duration.ofHours(2);
+
+}
@@ -0,0 +1,46 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Asynchronous generation job queue, bound from generation-jobs.* in application.yml
+ */
+@Data
+@ConfigurationProperties(prefix = "generation-jobs")
+public class GenerationJobProperties {
+
+    /**
+     * Disable to stop this node from running jobs (it can still enqueue them)
+     */
+    private boolean workerEnabled = true;
+
+    /**
+     * Jobs this node runs concurrently
+     */
+    private int workerThreads = 2;
+
+    /**
+     * Attempts before a job is marked FAILED
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * Base retry delay, doubled after each failed attempt
+     */
+    private Duration retryBackoff = Duration.ofSeconds(10);
+
+    /**
+     * How long a claimed job stays locked past its last heartbeat; expired locks are reclaimed by other nodes
+     */
+    private Duration lockTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Lifetime of an SSE subscription
+     */
+    private Duration sseTimeout = Duration.ofMinutes(5);
+
+}
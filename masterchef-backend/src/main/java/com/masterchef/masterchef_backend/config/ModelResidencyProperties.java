@@ -0,0 +1,60 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Ollama model residency (preload and warm-keeping), bound from llm.residency.* in application.yml
+ *
+ * Managed models are llm.ollama.model plus every routing tier's model.
+ */
+@Data
+@ConfigurationProperties(prefix = "llm.residency")
+public class ModelResidencyProperties {
+
+    /**
+     * Off: no keep_alive hints, no preloading or pings (Ollama unloads idle models after its own default)
+     */
+    private boolean enabled = true;
+
+    /**
+     * Load every managed model once the application is ready
+     */
+    private boolean preloadOnStartup = true;
+
+    /**
+     * keep_alive sent with every generation and ping; Ollama unloads a model this long after its last use
+     */
+    private Duration keepAlive = Duration.ofMinutes(30);
+
+    /**
+     * A model is pinged when it is unloaded or due to unload within this margin
+     */
+    private Duration refreshMargin = Duration.ofMinutes(5);
+
+    /**
+     * Outside business hours only models used within this window are kept warm
+     */
+    private Duration trafficWindow = Duration.ofHours(2);
+
+    /**
+     * Business hours (hour of day, end exclusive): every managed model is kept loaded
+     */
+    private int businessHoursStart = 8;
+
+    private int businessHoursEnd = 22;
+
+    /**
+     * Time zone the business hours are in
+     */
+    private String zone = "UTC";
+
+    /**
+     * A generation whose load_duration exceeds this paid for loading the model (cold start)
+     */
+    private Duration coldStartThreshold = Duration.ofSeconds(1);
+
+}
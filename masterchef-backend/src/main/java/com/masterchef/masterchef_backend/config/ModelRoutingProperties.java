@@ -0,0 +1,51 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Tiered model routing, bound from llm.routing.* in application.yml
+ *
+ * Tiers are ordered smallest/fastest first. A request starts at the first tier whose rules accept it
+ * and escalates to the next tier when the output is unusable or violates the request's constraints.
+ */
+@Data
+@ConfigurationProperties(prefix = "llm.routing")
+public class ModelRoutingProperties {
+
+    /**
+     * Off (or no tiers): every request uses llm.ollama.model
+     */
+    private boolean enabled = true;
+
+    private List<Tier> tiers = new ArrayList<>();
+
+    @Data
+    public static class Tier {
+
+        /**
+         * Tier name used in metrics and logs
+         */
+        private String name;
+
+        /**
+         * Ollama model served by this tier
+         */
+        private String model;
+
+        /**
+         * Requests with more ingredients skip this tier (null = no limit)
+         */
+        private Integer maxIngredients;
+
+        /**
+         * Whether requests with dietary preferences, a difficulty or a time limit may start here
+         */
+        private boolean allowConstraints = true;
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Unique identity of this backend instance (hostname + random suffix)
+ *
+ * Used as the holder/owner id in cluster-wide lease tables (LLM permits, job locks)
+ * so rows can be traced back to the ECS task that claimed them.
+ */
+@Slf4j
+@Getter
+@Component
+public class NodeIdentity {
+
+    private final String nodeId;
+
+    public NodeIdentity() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        this.nodeId = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+        log.info("Node identity: {}", nodeId);
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Password hashing isolation, bound from security.password-hashing.* in application.yml
+ *
+ * BCrypt runs on a dedicated bounded pool so login/register bursts cannot
+ * consume the request threads and CPU that recipe endpoints need.
+ */
+@Data
+@ConfigurationProperties(prefix = "security.password-hashing")
+public class PasswordHashingProperties {
+
+    /**
+     * BCrypt work factor for new hashes; stored hashes below it are upgraded on successful login
+     */
+    private int bcryptStrength = 12;
+
+    /**
+     * Hashing threads (caps the CPU auth traffic can take)
+     */
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * Hash operations allowed to wait for a thread before new ones are rejected
+     */
+    private int queueCapacity = 32;
+
+    /**
+     * Longest a request waits for its hash before giving up
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+
+    /**
+     * Retry-After sent to clients when the pool is saturated
+     */
+    private Duration retryAfter = Duration.ofSeconds(2);
+
+}
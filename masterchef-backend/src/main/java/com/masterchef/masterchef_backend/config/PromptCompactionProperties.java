@@ -0,0 +1,35 @@
+package com.masterchef.masterchef_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Compact prompt A/B test, bound from llm.prompt-compaction.* in application.yml
+ */
+@Data
+@ConfigurationProperties(prefix = "llm.prompt-compaction")
+public class PromptCompactionProperties {
+
+    /**
+     * Off: every request uses the full prompt
+     */
+    private boolean enabled = true;
+
+    /**
+     * Share of generations that use the compact prompt (0.0 - 1.0)
+     */
+    private double compactShare = 0.5;
+
+    /**
+     * Fresh generations per variant before the guard compares parse success rates
+     */
+    private int minSamples = 200;
+
+    /**
+     * Compact prompt is switched off (until restart) when its parse success rate
+     * falls more than this below the full prompt's
+     */
+    private double maxParseSuccessDrop = 0.05;
+
+}
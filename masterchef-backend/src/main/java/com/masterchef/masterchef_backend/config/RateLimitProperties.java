@@ -0,0 +1,51 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Per-user LLM rate limits, bound from the rate-limit.* block in application.yml
+ *
+ * Each plan gets its own token bucket size and refill period, e.g.
+ * rate-limit.plans.FREE.limit-for-period=10 with refresh-period=1m
+ * means 10 generations per minute per user on the free plan.
+ */
+@Data
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Plan used when a request carries no plan or an unknown one
+     */
+    private String defaultPlan = "FREE";
+
+    /**
+     * Buckets untouched for this long are evicted from memory
+     */
+    private Duration idleEviction = Duration.ofMinutes(10);
+
+    /**
+     * Limits keyed by plan name (FREE, PRO, ...)
+     */
+    private Map<String, Plan> plans = new LinkedHashMap<>();
+
+    @Data
+    public static class Plan {
+
+        /**
+         * Bucket capacity: requests allowed per refresh period
+         */
+        private int limitForPeriod = 10;
+
+        /**
+         * Time to refill a completely drained bucket
+         */
+        private Duration refreshPeriod = Duration.ofMinutes(1);
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Shared recipe body garbage collection, bound from recipes.bodies.* in application.yml
+ */
+@Data
+@ConfigurationProperties(prefix = "recipes.bodies")
+public class RecipeBodyProperties {
+
+    /**
+     * Unreferenced bodies younger than this are kept (a recipe may be about to point at them)
+     */
+    private Duration orphanGrace = Duration.ofDays(1);
+
+    /**
+     * Bodies deleted per statement during collection
+     */
+    private int orphanBatchSize = 1000;
+
+}
@@ -0,0 +1,36 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Recipe refinement on top of the stored Ollama context, bound from recipes.refinement.* in application.yml
+ */
+@Data
+@ConfigurationProperties(prefix = "recipes.refinement")
+public class RecipeRefinementProperties {
+
+    /**
+     * Off: contexts are not stored and every refinement re-sends the full prompt with the previous recipe
+     */
+    private boolean contextEnabled = true;
+
+    /**
+     * Contexts kept in memory per node (least recently used are evicted first)
+     */
+    private int maxEntries = 500;
+
+    /**
+     * How long after its generation a recipe can still be refined from its context
+     */
+    private Duration ttl = Duration.ofMinutes(30);
+
+    /**
+     * Contexts longer than this (tokens) are not stored
+     */
+    private int maxContextTokens = 8192;
+
+}
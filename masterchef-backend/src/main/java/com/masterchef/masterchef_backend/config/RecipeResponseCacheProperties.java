@@ -0,0 +1,34 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Serialized recipe detail cache, bound from recipes.response-cache.* in application.yml
+ */
+@Data
+@ConfigurationProperties(prefix = "recipes.response-cache")
+public class RecipeResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Recipes kept in memory (least recently viewed are evicted first)
+     */
+    private int maxEntries = 1000;
+
+    /**
+     * How long a cached body is served without touching the database
+     * Bounds staleness for recipes deleted or updated on another node
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * Bodies smaller than this are not worth a gzip variant
+     */
+    private int gzipMinBytes = 1024;
+
+}
@@ -0,0 +1,12 @@
+package com.masterchef.masterchef_backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (rate limiter eviction and other housekeeping)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -10,14 +10,14 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import com.masterchef.masterchef_backend.security.BoundedPasswordEncoder;
 import com.masterchef.masterchef_backend.security.JwtAuthenticationFilter;
 import com.masterchef.masterchef_backend.security.UserDetailsServiceImpl;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -29,21 +29,27 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final UserDetailsServiceImpl userDetailsServices;
 
+    private final PasswordHashingProperties passwordHashingProperties;
+    private final MeterRegistry meterRegistry;
+
     /**
-     * Password encoder using Bcrypt (cost factor 12)
+     * Password encoder using Bcrypt (configurable cost factor, default 12)
+     * Hashing runs on its own bounded pool, off the request threads
      */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder() {
+        return new BoundedPasswordEncoder(passwordHashingProperties, meterRegistry);
     }
 
     /**
      * Authentication provider that uses our UserDetailsService and password encoder
+     * Hashes weaker than the configured strength are upgraded on successful login
      */
     @Bean
     public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsServices);
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsServices);
         return authProvider;
     }
 
@@ -63,6 +69,7 @@ public class SecurityConfig {
                     "/swagger-ui.html",
                     "/v3/api-docs/**"
                 ).permitAll()
+                .requestMatchers("/api/v1/admin/**").hasRole("ADMIN") // Cluster-wide data and maintenance operations
                 .anyRequest().authenticated() // All other requests require authentication
             ).sessionManagement(session -> session
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS) // No server-side sessions
@@ -0,0 +1,41 @@
+package com.masterchef.masterchef_backend.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * In-memory token revocation filter, bound from jwt.revocation.* in application.yml
+ */
+@Data
+@ConfigurationProperties(prefix = "jwt.revocation")
+public class TokenRevocationProperties {
+
+    /**
+     * Revoked families the Bloom filter is sized for before its false-positive rate degrades
+     */
+    private int bloomExpectedInsertions = 100_000;
+
+    /**
+     * Target Bloom filter false-positive rate (positives are confirmed against the exact set, then the DB)
+     */
+    private double bloomFalsePositiveRate = 0.01;
+
+    /**
+     * Revoked families kept in the exact set; beyond this, positives are confirmed in the DB
+     */
+    private int maxExactEntries = 50_000;
+
+    /**
+     * Each incremental sync re-reads revocations this far back (tolerates late commits)
+     */
+    private Duration syncLookback = Duration.ofMinutes(2);
+
+    /**
+     * Full reload (and Bloom filter rebuild) interval, also used after a missed sync window
+     */
+    private Duration fullReloadInterval = Duration.ofHours(1);
+
+}
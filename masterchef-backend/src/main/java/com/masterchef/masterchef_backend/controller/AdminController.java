@@ -1,21 +1,44 @@
 package com.masterchef.masterchef_backend.controller;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.masterchef.masterchef_backend.config.AnalyticsProperties;
 import com.masterchef.masterchef_backend.dto.CacheStatsResponse;
+import com.masterchef.masterchef_backend.dto.GenerationHistoryResponse;
+import com.masterchef.masterchef_backend.dto.GenerationPromptResponse;
+import com.masterchef.masterchef_backend.dto.GenerationTimeSeriesResponse;
+import com.masterchef.masterchef_backend.dto.ModelResidencyResponse;
+import com.masterchef.masterchef_backend.exception.ResourceNotFoundException;
+import com.masterchef.masterchef_backend.llm.ModelResidencyManager;
+import com.masterchef.masterchef_backend.models.RecipeGeneration;
+import com.masterchef.masterchef_backend.repository.RecipeGenerationRepository;
+import com.masterchef.masterchef_backend.service.GenerationArchiveService;
+import com.masterchef.masterchef_backend.service.GenerationRollupService;
 import com.masterchef.masterchef_backend.service.LlmCacheService;
+import com.masterchef.masterchef_backend.service.PromptTemplateService;
+import com.masterchef.masterchef_backend.service.UserStatsService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Admin endpoints for cache management and system operations
- * Access restricted to admin users only
+ * Access restricted to admin users only: /api/v1/admin/** requires ROLE_ADMIN (SecurityConfig),
+ * and endpoints exposing other users' data or running maintenance also check it themselves
  */
 @Slf4j
 @RestController
@@ -24,6 +47,13 @@ import lombok.extern.slf4j.Slf4j;
 public class AdminController {
 
     private final LlmCacheService llmCacheService;
+    private final UserStatsService userStatsService;
+    private final GenerationRollupService generationRollupService;
+    private final RecipeGenerationRepository recipeGenerationRepository;
+    private final AnalyticsProperties analyticsProperties;
+    private final GenerationArchiveService generationArchiveService;
+    private final PromptTemplateService promptTemplateService;
+    private final ModelResidencyManager modelResidencyManager;
 
     /**
      * Get cache statistics
@@ -68,4 +98,133 @@ public class AdminController {
         log.info("Cleared {} expired cache entries", deletedCount);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Rebuild per-user metrics rollups from generation/recipe history (backfill, repair)
+     * POST /api/v1/admin/stats/rebuild?userId={userId}  (omit userId to rebuild every user)
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildUserStats(@RequestParam(required = false) UUID userId) {
+        log.info("POST /api/v1/admin/stats/rebuild - user: {}", userId != null ? userId : "ALL");
+
+        int rebuilt = userStatsService.rebuild(userId);
+
+        return ResponseEntity.ok(Map.of("rebuiltUsers", rebuilt));
+    }
+
+    /**
+     * Run recipe_generations partition maintenance now (create ahead, archive and drop expired months)
+     * POST /api/v1/admin/archive/run
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/archive/run")
+    public ResponseEntity<Map<String, Object>> runGenerationArchive() {
+        log.info("POST /api/v1/admin/archive/run");
+
+        generationArchiveService.ensurePartitions();
+        int dropped = generationArchiveService.archiveExpired();
+
+        return ResponseEntity.ok(Map.of("droppedPartitions", dropped));
+    }
+
+    /**
+     * System-wide generation time series from the pre-aggregated rollups
+     * GET /api/v1/admin/analytics/generations?granularity=HOUR&from=2025-01-01T00:00:00&to=2025-01-02T00:00:00
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/analytics/generations")
+    public ResponseEntity<GenerationTimeSeriesResponse> getGenerationTimeSeries(
+            @RequestParam(defaultValue = "HOUR") GenerationRollupService.Granularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String model,
+            @RequestParam(defaultValue = "false") boolean groupByModel
+    ) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        log.info("GET /api/v1/admin/analytics/generations - granularity: {}, from: {}, to: {}, model: {}",
+                granularity, from, end, model);
+
+        return ResponseEntity.ok(generationRollupService.timeSeries(granularity, from, end, model, groupByModel));
+    }
+
+    /**
+     * Raw generations in a time window (drill-down behind a time-series point)
+     * GET /api/v1/admin/analytics/generations/raw?from=...&to=...&status=FAILED&limit=100
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/analytics/generations/raw")
+    public ResponseEntity<List<GenerationHistoryResponse>> getGenerationsInWindow(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        int rows = Math.max(1, Math.min(limit, analyticsProperties.getMaxDrillDownRows()));
+        log.info("GET /api/v1/admin/analytics/generations/raw - from: {}, to: {}, status: {}, limit: {}",
+                from, to, status, rows);
+
+        List<GenerationHistoryResponse> generations = recipeGenerationRepository.findInWindow(from, to, status, rows)
+                .stream()
+                .map(gen -> GenerationHistoryResponse.builder()
+                        .id(gen.getId())
+                        .ingredients(gen.getIngredients())
+                        .dietaryPreferences(gen.getDietaryPreferences())
+                        .modelUsed(gen.getModelUsed())
+                        .tokensUsed(gen.getTokensUsed())
+                        .cached(gen.getCached())
+                        .latencyMs(gen.getLatencyMs())
+                        .status(gen.getStatus())
+                        .errorMessage(gen.getErrorMessage())
+                        .createdAt(gen.getCreatedAt())
+                        .build())
+                .toList();
+
+        return ResponseEntity.ok(generations);
+    }
+
+    /**
+     * Exact prompt and response of one generation, rebuilt from its template id and parameters
+     * GET /api/v1/admin/generations/{id}/prompt
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/generations/{id}/prompt")
+    public ResponseEntity<GenerationPromptResponse> getGenerationPrompt(@PathVariable UUID id) {
+        log.info("GET /api/v1/admin/generations/{}/prompt", id);
+
+        RecipeGeneration gen = recipeGenerationRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Generation", id.toString()));
+
+        String prompt = gen.getTemplateId() != null
+                ? promptTemplateService.rebuild(gen.getTemplateId(), gen.getPromptParams())
+                : gen.getPrompt();
+
+        String rawResponse = gen.getRawResponse();
+        String responseSource = "AUDIT";
+        if (rawResponse == null && gen.getCacheKey() != null) {
+            rawResponse = llmCacheService.findResponseByKey(gen.getCacheKey(), gen.getResponseHash()).orElse(null);
+            responseSource = rawResponse != null ? "LLM_CACHE" : "UNAVAILABLE";
+        }
+
+        return ResponseEntity.ok(GenerationPromptResponse.builder()
+                .id(gen.getId())
+                .templateId(gen.getTemplateId())
+                .prompt(prompt)
+                .rawResponse(rawResponse)
+                .responseSource(responseSource)
+                .cacheKey(gen.getCacheKey())
+                .createdAt(gen.getCreatedAt())
+                .build());
+    }
+
+    /**
+     * Loaded/unloaded state and cold-start counts of the managed Ollama models (as seen by this node)
+     * GET /api/v1/admin/models
+     */
+    @GetMapping("/models")
+    public ResponseEntity<List<ModelResidencyResponse>> getModelResidency() {
+        log.info("GET /api/v1/admin/models");
+
+        return ResponseEntity.ok(modelResidencyManager.status());
+    }
+}
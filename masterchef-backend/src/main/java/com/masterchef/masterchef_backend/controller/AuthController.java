@@ -2,6 +2,7 @@ package com.masterchef.masterchef_backend.controller;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -11,6 +12,7 @@ import com.masterchef.masterchef_backend.dto.LoginRequest;
 import com.masterchef.masterchef_backend.dto.RegisterRequest;
 import com.masterchef.masterchef_backend.dto.TokenRefreshRequest;
 import com.masterchef.masterchef_backend.dto.TokenRefreshResponse;
+import com.masterchef.masterchef_backend.security.AuthenticatedUser;
 import com.masterchef.masterchef_backend.service.AuthService;
 
 import org.springframework.web.bind.annotation.RequestBody;
@@ -58,5 +60,20 @@ public class AuthController {
         TokenRefreshResponse response = authService.refreshToken(request);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * End the current session: its access and refresh tokens are revoked on every node
+     * POST /api/v1/auth/logout
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@AuthenticationPrincipal AuthenticatedUser user) {
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        log.info("POST /api/v1/auth/logout - user: {}", user.email());
+        authService.logout(user.id(), user.familyId());
+        return ResponseEntity.noContent().build();
+    }
     
 }
\ No newline at end of file
@@ -1,34 +1,58 @@
 package com.masterchef.masterchef_backend.controller;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
-
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.masterchef.masterchef_backend.dto.CursorPage;
 import com.masterchef.masterchef_backend.dto.GenerationHistoryResponse;
+import com.masterchef.masterchef_backend.dto.GenerationJobResponse;
+import com.masterchef.masterchef_backend.dto.PageCursor;
 import com.masterchef.masterchef_backend.dto.RecipeExportResponse;
+import com.masterchef.masterchef_backend.dto.RecipeRefineRequest;
 import com.masterchef.masterchef_backend.dto.RecipeRequest;
 import com.masterchef.masterchef_backend.dto.RecipeResponse;
+import com.masterchef.masterchef_backend.dto.RecipeSummaryResponse;
 import com.masterchef.masterchef_backend.dto.UserMetricsResponse;
+import com.masterchef.masterchef_backend.exception.InvalidCursorException;
+import com.masterchef.masterchef_backend.exception.InvalidRequestException;
 import com.masterchef.masterchef_backend.exception.ResourceNotFoundException;
 import com.masterchef.masterchef_backend.models.Recipe;
 import com.masterchef.masterchef_backend.models.RecipeGeneration;
-import com.masterchef.masterchef_backend.models.User;
 import com.masterchef.masterchef_backend.repository.RecipeGenerationRepository;
 import com.masterchef.masterchef_backend.repository.RecipeRepository;
-import com.masterchef.masterchef_backend.repository.UserRepository;
+import com.masterchef.masterchef_backend.security.AuthenticatedUser;
+import com.masterchef.masterchef_backend.service.GenerationArchiveService;
+import com.masterchef.masterchef_backend.service.GenerationJobService;
+import com.masterchef.masterchef_backend.service.RecipeResponseCache;
 import com.masterchef.masterchef_backend.service.RecipeService;
 import com.masterchef.masterchef_backend.service.StorageService;
+import com.masterchef.masterchef_backend.service.UserStatsService;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -41,10 +65,15 @@ import lombok.extern.slf4j.Slf4j;
 public class RecipeController {
 
     private final RecipeService recipeService;
+    private final GenerationJobService generationJobService;
     private final StorageService storageService;
     private final RecipeRepository recipeRepository;
     private final RecipeGenerationRepository recipeGenerationRepository;
-    private final UserRepository userRepository;
+    private final RecipeResponseCache recipeResponseCache;
+    private final UserStatsService userStatsService;
+    private final GenerationArchiveService generationArchiveService;
+
+    private static final int MAX_PAGE_SIZE = 100;
 
     /**
      * Generate a recipe from ingredients
@@ -53,17 +82,13 @@ public class RecipeController {
     @PostMapping("/generate")
     public ResponseEntity<RecipeResponse> generateRecipe(
             @Valid @RequestBody RecipeRequest request,
-            @AuthenticationPrincipal UserDetails userDetails
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
-        String email = userDetails.getUsername();
+        String email = user.email();
         log.info("POST /api/v1/recipes/generate - user: {}, ingredients: {}", 
                 email, request.getIngredients());
 
-        // Get user from database to extract UUID
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        RecipeResponse response = recipeService.generateRecipe(request, user.getId());
+        RecipeResponse response = recipeService.generateRecipe(request, user.id());
         
         log.info("Recipe generated successfully: id={}, title={}", 
                 response.getId(), response.getTitle());
@@ -72,54 +97,159 @@ public class RecipeController {
     }
 
     /**
-     * GET all recipes from the authenticated user
-     * GET /api/v1/recipes?page=0&size=10&sort=createdAt,desc
+     * Queue a recipe generation job and return immediately
+     * POST /api/v1/recipes/generate/async -> 202 Accepted + Location of the job
+     */
+    @PostMapping("/generate/async")
+    public ResponseEntity<GenerationJobResponse> generateRecipeAsync(
+            @Valid @RequestBody RecipeRequest request,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        String email = user.email();
+        log.info("POST /api/v1/recipes/generate/async - user: {}, ingredients: {}", 
+                email, request.getIngredients());
+
+        GenerationJobResponse response = generationJobService.enqueue(request, user.id());
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/recipes/jobs/" + response.getJobId()))
+                .body(response);
+    }
+
+    /**
+     * Poll the status of a generation job
+     * GET /api/v1/recipes/jobs/{jobId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<GenerationJobResponse> getGenerationJob(
+            @PathVariable UUID jobId,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        return ResponseEntity.ok(generationJobService.getJob(jobId, user.id()));
+    }
+
+    /**
+     * Stream job status as Server-Sent Events until the job finishes
+     * GET /api/v1/recipes/jobs/{jobId}/events
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamGenerationJob(
+            @PathVariable UUID jobId,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        log.info("GET /api/v1/recipes/jobs/{}/events - user: {}", jobId, user.email());
+
+        return generationJobService.subscribe(jobId, user.id());
+    }
+
+    /**
+     * GET recipe cards of the authenticated user, newest first (keyset pagination)
+     * GET /api/v1/recipes?size=20&cursor=<nextCursor>&includeTotal=false&fields=id,title,tags
+     *
+     * Returns summaries only; full recipe detail is served by GET /api/v1/recipes/{id}
+     * Unknown names in fields are rejected (400) instead of returning empty cards
      */
     @GetMapping
-    public ResponseEntity<Page<RecipeResponse>> getUserRecipes(
-        @AuthenticationPrincipal UserDetails userDetails,
-        Pageable pageable
+    public ResponseEntity<CursorPage<RecipeSummaryResponse>> getUserRecipes(
+        @AuthenticationPrincipal AuthenticatedUser user,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size,
+        @RequestParam(defaultValue = "false") boolean includeTotal,
+        @RequestParam(required = false) Set<String> fields
     ) {
-        String email = userDetails.getUsername();
-        User user = userRepository.findByEmail(email)
-                        .orElseThrow(() -> new ResourceNotFoundException("User", email));
-        
-        log.info("GET /api/vi/recipes - user: {}, page: {}, size: {}",
-                        email, pageable.getPageNumber(), pageable.getPageSize()
-        );
+        int pageSize = clampPageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        validateFields(fields);
 
-        Page<Recipe> recipes = recipeRepository.findByUserId(user.getId(), pageable);
-        Page<RecipeResponse> response = recipes.map(this::mapToRecipeResponse);
+        log.info("GET /api/v1/recipes - user: {}, size: {}, cursor: {}, fields: {}",
+                user.email(), pageSize, after != null, fields);
 
-        return ResponseEntity.ok(response);
+        // Fetch one extra row to learn whether another page exists, without a COUNT
+        List<RecipeSummaryResponse> rows = after == null
+                ? recipeRepository.findSummariesByUserId(user.id(), Limit.of(pageSize + 1))
+                : recipeRepository.findSummariesByUserIdAfter(user.id(), after.createdAt(), after.id(), Limit.of(pageSize + 1));
+
+        Long total = includeTotal ? recipeRepository.countByUserId(user.id()) : null;
+
+        return ResponseEntity.ok(toCursorPage(rows, pageSize, total,
+                summary -> new PageCursor(summary.getCreatedAt(), summary.getId()),
+                summary -> summary.select(fields)));
     }
 
     /**
      * Get a specific recipe by ID
      * GET /api/v1/recipes/{id}
+     *
+     * Served from pre-serialized bytes when cached; returns the gzip variant when the client accepts it
+     * Each content coding has its own ETag; If-None-Match (304) is checked against the variant being served
      */
     @GetMapping("/{id}")
-    public ResponseEntity<RecipeResponse> getRecipeById(
+    public ResponseEntity<byte[]> getRecipeById(
         @PathVariable UUID id,
-        @AuthenticationPrincipal UserDetails userDetails
+        @AuthenticationPrincipal AuthenticatedUser user,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
     ) {
-        String email = userDetails.getUsername();
-        User user = userRepository.findByEmail(email)
-                        .orElseThrow(() -> new ResourceNotFoundException("User", email));
+        String email = user.email();
         
         log.info("GET /api/v1/recipes/{} - user: {}", id, email);
 
-        Recipe recipe = recipeRepository.findById(id)
-                          .orElseThrow(() -> new ResourceNotFoundException("Recipe", id.toString()));
+        RecipeResponseCache.CachedRecipe cached = recipeResponseCache.get(id);
+        if (cached == null) {
+            Recipe recipe = recipeRepository.findWithBodyById(id)
+                              .orElseThrow(() -> new ResourceNotFoundException("Recipe", id.toString()));
+
+            cached = recipeResponseCache.put(recipe.getUser().getId(), recipe.getUpdatedAt(), mapToRecipeResponse(recipe));
+        }
 
-        if(!recipe.getUser().getId().equals(user.getId())) {
+        if(!cached.ownerId().equals(user.id())) {
                 throw new ResourceNotFoundException("Wrong Recipe", id.toString());
         }
 
-        return ResponseEntity.ok(mapToRecipeResponse(recipe));
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        boolean gzip = cached.gzip() != null && acceptsGzip(acceptEncoding);
+        String etag = gzip ? cached.gzipEtag() : cached.etag();
+
+        if (etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.gzip());
+        }
+        return response.body(cached.json());
 
     }
 
+    /**
+     * Refine a recipe with a follow-up instruction ("make it vegetarian", "less spicy"); returns the new recipe
+     * POST /api/v1/recipes/{id}/refine
+     */
+    @PostMapping("/{id}/refine")
+    public ResponseEntity<RecipeResponse> refineRecipe(
+            @PathVariable UUID id,
+            @Valid @RequestBody RecipeRefineRequest request,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        log.info("POST /api/v1/recipes/{}/refine - user: {}", id, user.email());
+
+        RecipeResponse response = recipeService.refineRecipe(id, request, user.id());
+
+        log.info("Recipe refined successfully: id={}, from={}", response.getId(), id);
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Delete a recipe and its S3 exports
      * DELETE /api/v1/recipes/{id}
@@ -127,11 +257,9 @@ public class RecipeController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteRecipe(
             @PathVariable UUID id,
-            @AuthenticationPrincipal UserDetails userDetails
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
-        String email = userDetails.getUsername();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User", email));
+        String email = user.email();
 
         log.info("DELETE /api/v1/recipes/{} - user: {}", id, email);
 
@@ -139,19 +267,20 @@ public class RecipeController {
                 .orElseThrow(() -> new ResourceNotFoundException("Recipe", id.toString()));
 
         // Verify ownership
-        if (!recipe.getUser().getId().equals(user.getId())) {
+        if (!recipe.getUser().getId().equals(user.id())) {
             throw new ResourceNotFoundException("Recipe", id.toString());
         }
 
         // Delete S3 exports if they exist
         try {
-            String s3Key = String.format("exports/%s/%s.json", user.getId(), id);
+            String s3Key = String.format("exports/%s/%s.json", user.id(), id);
             storageService.deleteObject(s3Key);
         } catch (Exception e) {
             log.warn("Failed to delete S3 export for recipe {}: {}", id, e.getMessage());
         }
 
-        recipeRepository.delete(recipe);
+        recipeService.deleteRecipe(recipe);
+        recipeResponseCache.invalidate(id);
         log.info("Recipe deleted: id={}", id);
 
         return ResponseEntity.noContent().build();
@@ -166,19 +295,17 @@ public class RecipeController {
     @PostMapping("/{id}/export")
     public ResponseEntity<RecipeExportResponse> exportRecipe(
             @PathVariable UUID id,
-            @AuthenticationPrincipal UserDetails userDetails
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
-        String email = userDetails.getUsername();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User", email));
+        String email = user.email();
 
         log.info("POST /api/v1/recipes/{}/export - user: {}", id, email);
 
-        Recipe recipe = recipeRepository.findById(id)
+        Recipe recipe = recipeRepository.findWithBodyById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Recipe", id.toString()));
 
         // Verify ownership
-        if (!recipe.getUser().getId().equals(user.getId())) {
+        if (!recipe.getUser().getId().equals(user.id())) {
             throw new ResourceNotFoundException("Recipe", id.toString());
         }
 
@@ -188,7 +315,7 @@ public class RecipeController {
 
         // Upload to S3
         String s3Key = storageService.uploadRecipeExport(
-                user.getId(), 
+                user.id(), 
                 recipe.getId(), 
                 content, 
                 "application/json"
@@ -211,25 +338,30 @@ public class RecipeController {
     }
 
     /**
-     * Get generation history for the authenticated user
-     * GET /api/v1/recipes/history?page=0&size=20
+     * Get generation history for the authenticated user, newest first (keyset pagination)
+     * GET /api/v1/recipes/history?size=20&cursor=<nextCursor>&includeTotal=false
      */
     @GetMapping("/history")
-    public ResponseEntity<Page<GenerationHistoryResponse>> getGenerationHistory(
-            @AuthenticationPrincipal UserDetails userDetails,
-            Pageable pageable
+    public ResponseEntity<CursorPage<GenerationHistoryResponse>> getGenerationHistory(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal
     ) {
-        String email = userDetails.getUsername();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User", email));
+        int pageSize = clampPageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+
+        log.info("GET /api/v1/recipes/history - user: {}, size: {}, cursor: {}", user.email(), pageSize, after != null);
 
-        log.info("GET /api/v1/recipes/history - user: {}", email);
+        List<RecipeGeneration> rows = after == null
+                ? recipeGenerationRepository.findFirstPageByUserId(user.id(), pageSize + 1)
+                : recipeGenerationRepository.findPageByUserIdAfter(user.id(), after.createdAt(), after.id(), pageSize + 1);
 
-        Page<RecipeGeneration> generations = recipeGenerationRepository
-                .findByUserIdOrderByCreatedAtDesc(user.getId(), pageable);
+        Long total = includeTotal ? recipeGenerationRepository.countByUserId(user.id()) : null;
 
-        Page<GenerationHistoryResponse> response = generations.map(gen -> 
-                GenerationHistoryResponse.builder()
+        return ResponseEntity.ok(toCursorPage(rows, pageSize, total,
+                gen -> new PageCursor(gen.getCreatedAt(), gen.getId()),
+                gen -> GenerationHistoryResponse.builder()
                         .id(gen.getId())
                         .ingredients(gen.getIngredients())
                         .dietaryPreferences(gen.getDietaryPreferences())
@@ -240,10 +372,55 @@ public class RecipeController {
                         .status(gen.getStatus())
                         .errorMessage(gen.getErrorMessage())
                         .createdAt(gen.getCreatedAt())
-                        .build()
-        );
+                        .build()));
+    }
 
-        return ResponseEntity.ok(response);
+    /**
+     * Get generation history of a month that was archived to S3 and dropped from the database
+     * GET /api/v1/recipes/history/archive?month=2024-01&limit=20&cursor=<nextCursor>
+     *
+     * Only the archive segments holding the user's rows are read (per-user segment index)
+     */
+    @GetMapping("/history/archive")
+    public ResponseEntity<CursorPage<GenerationHistoryResponse>> getArchivedGenerationHistory(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor
+    ) {
+        int pageSize = clampPageSize(limit);
+        long offset = decodeOffset(cursor);
+
+        log.info("GET /api/v1/recipes/history/archive - user: {}, month: {}, limit: {}, offset: {}",
+                user.email(), month, pageSize, offset);
+
+        GenerationArchiveService.ArchivedPage page = generationArchiveService.readArchived(user.id(), month, offset, pageSize);
+        long next = offset + page.records().size();
+        boolean hasMore = next < page.total();
+
+        List<GenerationHistoryResponse> history = page.records()
+                .stream()
+                .map(record -> GenerationHistoryResponse.builder()
+                        .id(record.id())
+                        .ingredients(record.ingredients())
+                        .dietaryPreferences(record.dietaryPreferences())
+                        .modelUsed(record.modelUsed())
+                        .tokensUsed(record.tokensUsed())
+                        .cached(record.cached())
+                        .latencyMs(record.latencyMs())
+                        .status(record.status())
+                        .errorMessage(record.errorMessage())
+                        .createdAt(record.createdAt())
+                        .build())
+                .toList();
+
+        return ResponseEntity.ok(CursorPage.<GenerationHistoryResponse>builder()
+                .items(history)
+                .size(history.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? encodeOffset(next) : null)
+                .totalElements(page.total())
+                .build());
     }
 
     /**
@@ -252,35 +429,108 @@ public class RecipeController {
      */
     @GetMapping("/metrics")
     public ResponseEntity<UserMetricsResponse> getUserMetrics(
-            @AuthenticationPrincipal UserDetails userDetails
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
-        String email = userDetails.getUsername();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User", email));
+        String email = user.email();
 
         log.info("GET /api/v1/recipes/metrics - user: {}", email);
 
-        long totalGenerations = recipeGenerationRepository.countByUserId(user.getId());
-        long cacheHits = recipeGenerationRepository.countCacheHitsByUserId(user.getId());
-        long totalRecipesSaved = recipeRepository.countByUserIdAndIsSavedTrue(user.getId());
-        Long totalTokensUsed = recipeGenerationRepository.sumTokensUsedByUserId(user.getId());
-        Double averageLatencyMs = recipeGenerationRepository.calculateAverageLatencyByUserId(user.getId());
-
-        double cacheHitRate = totalGenerations > 0 ? 
-                (double) cacheHits / totalGenerations : 0.0;
-
-        UserMetricsResponse response = UserMetricsResponse.builder()
-                .totalGenerations(totalGenerations)
-                .cacheHits(cacheHits)
-                .totalRecipesSaved(totalRecipesSaved)
-                .totalTokensUsed(totalTokensUsed != null ? totalTokensUsed : 0L)
-                .averageLatencyMs(averageLatencyMs != null ? averageLatencyMs : 0.0)
-                .cacheHitRate(cacheHitRate)
-                .build();
+        // Single primary-key read of the incrementally maintained rollup
+        UserMetricsResponse response = userStatsService.getMetrics(user.id());
 
         return ResponseEntity.ok(response);
     }
 
+    private static void validateFields(Set<String> fields) {
+        if (fields == null) {
+            return;
+        }
+        Set<String> unknown = new TreeSet<>(fields);
+        unknown.removeAll(RecipeSummaryResponse.FIELDS);
+        unknown.removeIf(String::isBlank);
+        if (!unknown.isEmpty()) {
+            throw new InvalidRequestException("Unknown fields: " + String.join(", ", unknown)
+                    + " (allowed: " + String.join(", ", new TreeSet<>(RecipeSummaryResponse.FIELDS)) + ")");
+        }
+    }
+
+    /**
+     * If-None-Match may list several ETags or be "*"; weak validators compare by opaque tag
+     */
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Archive cursors are opaque row offsets into the user's archived month
+     */
+    private static String encodeOffset(long offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeOffset(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            long offset = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (offset < 0) {
+                throw new InvalidCursorException(cursor);
+            }
+            return offset;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    private static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Trim the look-ahead row and derive the next cursor from the last item returned
+     */
+    private static <E, R> CursorPage<R> toCursorPage(
+            List<E> rows, int pageSize, Long total,
+            Function<E, PageCursor> cursorOf, Function<E, R> mapper) {
+        boolean hasMore = rows.size() > pageSize;
+        List<E> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        return CursorPage.<R>builder()
+                .items(page.stream().map(mapper).toList())
+                .size(page.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? cursorOf.apply(page.get(page.size() - 1)).encode() : null)
+                .totalElements(total)
+                .build();
+    }
+
     private RecipeResponse mapToRecipeResponse(Recipe recipe) {
         return RecipeResponse.builder()
                 .id(recipe.getId())
@@ -293,9 +543,9 @@ public class RecipeController {
                 .difficulty(recipe.getDifficulty())
                 .cuisine(recipe.getCuisine())
                 .ingredientsUsed(recipe.getIngredientsUsed())
-                .instructions(recipe.getInstructions())
-                .ingredients(recipe.getIngredients())
-                .nutritionInfo(recipe.getNutritionInfo())
+                .instructions(recipe.getBody().getInstructions())
+                .ingredients(recipe.getBody().getIngredients())
+                .nutritionInfo(recipe.getBody().getNutritionInfo())
                 .tags(recipe.getTags())
                 .isSaved(recipe.getIsSaved())
                 .createdAt(recipe.getCreatedAt())
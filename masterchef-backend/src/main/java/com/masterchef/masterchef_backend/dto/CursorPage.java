@@ -0,0 +1,34 @@
+package com.masterchef.masterchef_backend.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of a keyset-paginated listing
+ * Pass nextCursor back as ?cursor= to fetch the following page
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+    private Integer size;
+    private Boolean hasMore;
+
+    /**
+     * Opaque token for the next page (null on the last page)
+     */
+    private String nextCursor;
+
+    /**
+     * Total number of items; only computed when requested with includeTotal=true
+     */
+    private Long totalElements;
+
+}
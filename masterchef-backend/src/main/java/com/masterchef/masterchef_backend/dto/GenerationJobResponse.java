@@ -0,0 +1,25 @@
+package com.masterchef.masterchef_backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationJobResponse {
+
+    private UUID jobId;
+    private String status; // QUEUED, RUNNING, SUCCEEDED, FAILED
+    private Integer attempts;
+    private UUID recipeId; // Set once SUCCEEDED
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    
+}
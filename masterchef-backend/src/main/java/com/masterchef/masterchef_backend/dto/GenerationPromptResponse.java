@@ -0,0 +1,28 @@
+package com.masterchef.masterchef_backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Exact prompt and response of one generation, rebuilt from its template reference (admin debugging)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationPromptResponse {
+
+    private UUID id;
+    private String templateId;      // null for rows that stored the full prompt
+    private String prompt;
+    private String rawResponse;     // null when the referenced llm_cache entry is gone or was regenerated
+    private String responseSource;  // AUDIT, LLM_CACHE or UNAVAILABLE
+    private String cacheKey;
+    private LocalDateTime createdAt;
+
+}
@@ -0,0 +1,51 @@
+package com.masterchef.masterchef_backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * System-wide generation time series served from generation_rollups
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationTimeSeriesResponse {
+
+    private String granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<Point> points;
+
+    /**
+     * One bucket (per model when grouped by model); latency percentiles are sketch estimates
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Point {
+
+        private LocalDateTime bucketStart;
+        private String model;
+        private long generations;
+        private long cacheHits;
+        private long failures;
+        private long tokensUsed;
+        private long costCents;
+        private Double averageLatencyMs;
+        private Double p50LatencyMs;
+        private Double p95LatencyMs;
+        private Long maxLatencyMs;
+
+    }
+
+}
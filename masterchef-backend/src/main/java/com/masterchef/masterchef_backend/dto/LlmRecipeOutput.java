@@ -0,0 +1,28 @@
+package com.masterchef.masterchef_backend.dto;
+
+import java.util.List;
+
+/**
+ * Recipe JSON the model is asked to return
+ * Source of the JSON schema sent as Ollama's "format" and used to validate the output (RecipeOutputSchema);
+ * component names are the JSON keys
+ */
+public record LlmRecipeOutput(
+        String title,
+        String description,
+        Integer prepTime,
+        Integer cookTime,
+        String difficulty,
+        String cuisine,
+        List<String> instructions,
+        List<Ingredient> ingredients,
+        Nutrition nutritionInfo,
+        List<String> tags) {
+
+    public record Ingredient(String name, String amount, String unit) {
+    }
+
+    public record Nutrition(Double calories, Double protein, Double carbs, Double fat) {
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.masterchef.masterchef_backend.dto;
 
 import java.util.List;
+import java.util.Map;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -18,6 +19,21 @@ public class LlmRequest {
      */
     private String prompt;
 
+    /**
+     * Template the prompt was rendered from (e.g. "recipe@1"); part of the cache key
+     */
+    private String templateId;
+
+    /**
+     * JSON schema the output must follow (Ollama structured outputs); null = free-form text
+     */
+    private Map<String, Object> format;
+
+    /**
+     * Ollama context of an earlier generation to continue from (refinements); part of the cache key
+     */
+    private int[] context;
+
     /**
      * Model Name (e.g., "mistral", "gpt-4")
      */
@@ -34,6 +50,17 @@ public class LlmRequest {
     @Builder.Default
     private Double temperature = 0.7;
 
+    /**
+     * Bypass the cache lookup (the result still replaces the cached entry), e.g. to regenerate unusable output
+     */
+    private boolean skipCache;
+
+    /**
+     * The user request was already charged against the per-user rate limit (LlmOrchestrator.chargeRateLimit),
+     * so this attempt (escalation, regeneration, refinement fallback) is not charged again
+     */
+    private boolean rateLimitCharged;
+
     /**
      * Ingredients used (for logging/debugging)
      */
@@ -44,4 +71,9 @@ public class LlmRequest {
      */
     private String userId;
 
+    /**
+     * User plan (selects the per-user rate limit)
+     */
+    private String plan;
+
 }
\ No newline at end of file
@@ -28,6 +28,21 @@ public class LlmResponse {
      */
     private Integer tokensUsed;
 
+    /**
+     * Prompt tokens evaluated by the model (Ollama prompt_eval_count; null if not reported)
+     */
+    private Integer promptEvalCount;
+
+    /**
+     * Tokens generated by the model (Ollama eval_count; null if not reported)
+     */
+    private Integer evalCount;
+
+    /**
+     * Ollama context (prompt + response tokens) to continue from in a follow-up request (null if not returned)
+     */
+    private int[] context;
+
     /**
      * Estimated cost in cents
      */
@@ -60,5 +75,10 @@ public class LlmResponse {
      * Error message if failed
      */
     private String errorMessage;
+
+    /**
+     * llm_cache input hash this response was served from or stored under (null if not cached)
+     */
+    private String cacheKey;
     
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.masterchef.masterchef_backend.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Residency of one managed Ollama model as last seen by this node (admin)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModelResidencyResponse {
+
+    private String model;
+    private Boolean loaded;
+    private LocalDateTime expiresAt;       // when Ollama will unload it; null when not loaded
+    private Long coldStarts;               // user generations that paid the model load
+    private Long preloads;                 // loads done by preload/pings instead
+    private LocalDateTime lastRequestAt;
+    private LocalDateTime lastPingAt;
+
+}
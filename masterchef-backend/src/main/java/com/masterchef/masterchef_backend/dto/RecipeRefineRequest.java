@@ -0,0 +1,23 @@
+package com.masterchef.masterchef_backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeRefineRequest {
+
+    /**
+     * Follow-up change, e.g. "make it vegetarian" or "less spicy"
+     */
+    @NotBlank(message = "Instruction is required")
+    @Size(max = 500, message = "Instruction cannot exceed 500 characters")
+    private String instruction;
+
+}
@@ -4,6 +4,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -27,10 +29,14 @@ public class RecipeResponse {
     private List<String> ingredientsUsed;
     
     /**
-     * Parsed structured data (will be JSON strings from entity)
+     * Structured data, held as the JSON text read from the JSONB columns
+     * Written verbatim into the response as nested JSON (no re-parsing, no string escaping)
      */
+    @JsonRawValue
     private String instructions;
+    @JsonRawValue
     private String ingredients;
+    @JsonRawValue
     private String nutritionInfo;
 
     private List<String> tags;
@@ -52,6 +58,8 @@ public class RecipeResponse {
         private Long latencyMs;
         private Boolean cached;
         private LocalDateTime generatedAt;
+        private UUID refinedFrom;       // recipe this one was refined from (null for new generations)
+        private Boolean contextReused;  // refinement continued from the stored Ollama context
     }
     
 }
\ No newline at end of file
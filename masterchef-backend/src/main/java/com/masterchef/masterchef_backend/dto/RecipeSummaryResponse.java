@@ -0,0 +1,60 @@
+package com.masterchef.masterchef_backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Recipe card for list endpoints
+ *
+ * Populated by a projection query that never reads the JSONB bodies or
+ * ingredient arrays; full detail comes from GET /api/v1/recipes/{id}.
+ * Null fields are omitted, which is how ?fields= selection trims the payload.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RecipeSummaryResponse {
+
+    public static final Set<String> FIELDS = Set.of(
+            "id", "title", "cuisine", "difficulty", "totalTime", "tags", "createdAt");
+
+    // Constructor order is used by the JPQL projection in RecipeRepository
+    private UUID id;
+    private String title;
+    private String cuisine;
+    private String difficulty;
+    private Integer totalTime;
+    private List<String> tags;
+    private LocalDateTime createdAt;
+
+    /**
+     * Copy holding only the requested fields (null or empty selection keeps everything)
+     */
+    public RecipeSummaryResponse select(Set<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return this;
+        }
+
+        return RecipeSummaryResponse.builder()
+                .id(fields.contains("id") ? id : null)
+                .title(fields.contains("title") ? title : null)
+                .cuisine(fields.contains("cuisine") ? cuisine : null)
+                .difficulty(fields.contains("difficulty") ? difficulty : null)
+                .totalTime(fields.contains("totalTime") ? totalTime : null)
+                .tags(fields.contains("tags") ? tags : null)
+                .createdAt(fields.contains("createdAt") ? createdAt : null)
+                .build();
+    }
+
+}
@@ -14,6 +14,7 @@ import lombok.NoArgsConstructor;
 public class TokenRefreshResponse {
     
     private String accessToken;
+    private String refreshToken; // Rotated: the presented refresh token is no longer valid
     private Long expiresIn;
     private LocalDateTime issuedAt;
 
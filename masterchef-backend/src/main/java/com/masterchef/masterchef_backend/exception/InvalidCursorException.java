@@ -0,0 +1,12 @@
+package com.masterchef.masterchef_backend.exception;
+
+/**
+ * Thrown when a pagination cursor cannot be decoded
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid pagination cursor: " + cursor);
+    }
+
+}
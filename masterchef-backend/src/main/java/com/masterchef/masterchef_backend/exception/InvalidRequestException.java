@@ -0,0 +1,12 @@
+package com.masterchef.masterchef_backend.exception;
+
+/**
+ * Thrown when request parameters are well-formed but not acceptable (e.g. a query range too large)
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+}
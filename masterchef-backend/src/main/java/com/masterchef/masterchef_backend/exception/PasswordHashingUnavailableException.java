@@ -0,0 +1,19 @@
+package com.masterchef.masterchef_backend.exception;
+
+/**
+ * Thrown when the password hashing pool is saturated and the request is shed
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+}
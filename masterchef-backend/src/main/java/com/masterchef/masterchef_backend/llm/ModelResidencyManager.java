@@ -0,0 +1,342 @@
+package com.masterchef.masterchef_backend.llm;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.masterchef.masterchef_backend.config.ModelResidencyProperties;
+import com.masterchef.masterchef_backend.config.ModelRoutingProperties;
+import com.masterchef.masterchef_backend.dto.ModelResidencyResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the configured Ollama models loaded so model-load time does not land on user requests
+ *
+ * Managed models: llm.ollama.model plus every routing tier's model (llm.residency)
+ * Preload: every managed model is loaded once the application is ready
+ * keep_alive: sent with every generation, so a model in use stays loaded for keep-alive after its last request
+ * Pings: a periodic check reads Ollama's /api/ps and loads (or re-arms keep_alive on) any model that is unloaded
+ * or due to unload within refresh-margin. Busy models never need a ping: their own traffic keeps extending it.
+ * During business hours (and refresh-margin before they start) every managed model is kept loaded;
+ * outside them only models with traffic in the last traffic-window are
+ *
+ * Preloads and pings run on a dedicated thread, never on the shared scheduler or a request thread
+ * Metrics: llm.model.cold_starts{model, source=request|preload}, llm.model.loaded{model}
+ */
+@Slf4j
+@Component
+public class ModelResidencyManager {
+
+    private final RestTemplate restTemplate;
+    private final String baseUrl;
+    private final ModelResidencyProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ZoneId zone;
+    private final Map<String, ModelState> models = new LinkedHashMap<>();
+    private final ExecutorService executor;
+    private final AtomicBoolean passRunning = new AtomicBoolean();
+
+    public ModelResidencyManager(
+            RestTemplate restTemplate,
+            @Value("${llm.ollama.base-url}") String baseUrl,
+            @Value("${llm.ollama.model}") String defaultModel,
+            ModelRoutingProperties routingProperties,
+            ModelResidencyProperties properties,
+            MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.baseUrl = baseUrl;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.zone = ZoneId.of(properties.getZone());
+
+        Set<String> managed = new LinkedHashSet<>();
+        managed.add(defaultModel);
+        if (routingProperties.isEnabled()) {
+            routingProperties.getTiers().forEach(tier -> managed.add(tier.getModel()));
+        }
+        for (String model : managed) {
+            ModelState state = new ModelState(model);
+            models.put(key(model), state);
+
+            Gauge.builder("llm.model.loaded", state, s -> s.loaded ? 1 : 0)
+                    .description("1 while the model is loaded in Ollama (as last seen by this node)")
+                    .tag("model", model)
+                    .register(meterRegistry);
+        }
+
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "model-residency");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Load every managed model before the first user request needs it
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        if (!properties.isEnabled() || !properties.isPreloadOnStartup()) {
+            return;
+        }
+        log.info("Preloading Ollama models: {}", models.values().stream().map(state -> state.model).toList());
+        runPass(() -> {
+            refreshLoaded();
+            models.values().forEach(this::ping);
+        });
+    }
+
+    /**
+     * Ping the managed models that are, or are about to be, unloaded
+     */
+    @Scheduled(fixedDelayString = "${llm.residency.check-interval-ms:60000}")
+    public void check() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        runPass(this::keepWarm);
+    }
+
+    /**
+     * keep_alive for a generation in seconds; null when residency is off (Ollama's default applies)
+     */
+    public Long keepAliveSeconds() {
+        return properties.isEnabled() ? properties.getKeepAlive().toSeconds() : null;
+    }
+
+    /**
+     * Record a completed generation; loadDurationNanos is Ollama's load_duration
+     */
+    public void recordGeneration(String model, Long loadDurationNanos) {
+        boolean cold = loadDurationNanos != null && loadDurationNanos > properties.getColdStartThreshold().toNanos();
+        if (cold) {
+            coldStartCounter(model, "request").increment();
+            if (inBusinessHours(ZonedDateTime.now(zone))) {
+                log.warn("Cold start on a user request during business hours: model={}, load={}ms",
+                        model, loadDurationNanos / 1_000_000);
+            } else {
+                log.info("Cold start on a user request: model={}, load={}ms", model, loadDurationNanos / 1_000_000);
+            }
+        }
+
+        ModelState state = models.get(key(model));
+        if (state == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        state.lastRequestAt = now;
+        state.loaded = true;
+        if (properties.isEnabled()) {
+            state.expiresAt = now.plus(properties.getKeepAlive());
+        }
+        if (cold) {
+            state.coldStarts.incrementAndGet();
+        }
+    }
+
+    /**
+     * Residency of every managed model
+     */
+    public List<ModelResidencyResponse> status() {
+        return models.values().stream()
+                .map(state -> ModelResidencyResponse.builder()
+                        .model(state.model)
+                        .loaded(state.loaded)
+                        .expiresAt(state.expiresAt)
+                        .coldStarts(state.coldStarts.get())
+                        .preloads(state.preloads.get())
+                        .lastRequestAt(state.lastRequestAt)
+                        .lastPingAt(state.lastPingAt)
+                        .build())
+                .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * One pass at a time: a pass that is still loading models makes the next check a no-op
+     */
+    private void runPass(Runnable pass) {
+        if (!passRunning.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                pass.run();
+            } catch (Exception e) {
+                log.warn("Model residency pass failed: {}", e.getMessage());
+            } finally {
+                passRunning.set(false);
+            }
+        });
+    }
+
+    private void keepWarm() {
+        if (!refreshLoaded()) {
+            return;
+        }
+
+        ZonedDateTime zonedNow = ZonedDateTime.now(zone);
+        boolean businessHours = inBusinessHours(zonedNow) || inBusinessHours(zonedNow.plus(properties.getRefreshMargin()));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime trafficCutoff = now.minus(properties.getTrafficWindow());
+        LocalDateTime refreshBefore = now.plus(properties.getRefreshMargin());
+
+        for (ModelState state : models.values()) {
+            boolean wanted = businessHours || (state.lastRequestAt != null && state.lastRequestAt.isAfter(trafficCutoff));
+            boolean expiring = !state.loaded || state.expiresAt == null || state.expiresAt.isBefore(refreshBefore);
+            if (wanted && expiring) {
+                ping(state);
+            }
+        }
+    }
+
+    /**
+     * Update loaded/expiresAt from Ollama's running models; false when Ollama could not be reached
+     */
+    @SuppressWarnings("unchecked")
+    private boolean refreshLoaded() {
+        Map<String, Object> body;
+        try {
+            ResponseEntity<Map> response = restTemplate.getForEntity(baseUrl + "/api/ps", Map.class);
+            body = response.getBody();
+        } catch (RestClientException e) {
+            log.warn("Could not read loaded Ollama models: {}", e.getMessage());
+            return false;
+        }
+
+        Map<String, LocalDateTime> running = new HashMap<>();
+        Object entries = body != null ? body.get("models") : null;
+        if (entries instanceof List<?> list) {
+            for (Object entry : list) {
+                if (entry instanceof Map<?, ?> model && model.get("name") instanceof String name) {
+                    running.put(key(name), expiresAt(model.get("expires_at")));
+                }
+            }
+        }
+
+        for (Map.Entry<String, ModelState> entry : models.entrySet()) {
+            ModelState state = entry.getValue();
+            state.loaded = running.containsKey(entry.getKey());
+            state.expiresAt = running.get(entry.getKey());
+        }
+        return true;
+    }
+
+    /**
+     * Load the model (or re-arm its keep_alive): a generate call without a prompt
+     */
+    private void ping(ModelState state) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", state.model);
+        requestBody.put("keep_alive", properties.getKeepAlive().toSeconds());
+        requestBody.put("stream", false);
+
+        long startTime = System.currentTimeMillis();
+        boolean wasLoaded = state.loaded;
+        try {
+            restTemplate.postForEntity(baseUrl + "/api/generate", requestBody, Map.class);
+        } catch (RestClientException e) {
+            log.warn("Model ping failed: model={}, error={}", state.model, e.getMessage());
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        state.lastPingAt = now;
+        state.loaded = true;
+        state.expiresAt = now.plus(properties.getKeepAlive());
+        if (!wasLoaded) {
+            state.preloads.incrementAndGet();
+            coldStartCounter(state.model, "preload").increment();
+            log.info("Loaded Ollama model ahead of traffic: model={}, took={}ms",
+                    state.model, System.currentTimeMillis() - startTime);
+        } else {
+            log.debug("Extended keep_alive: model={}", state.model);
+        }
+    }
+
+    private Counter coldStartCounter(String model, String source) {
+        return Counter.builder("llm.model.cold_starts")
+                .description("Ollama model loads, by whether a user request or the residency manager paid for them")
+                .tag("model", model != null ? model : "unknown")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private boolean inBusinessHours(ZonedDateTime time) {
+        int hour = time.getHour();
+        int start = properties.getBusinessHoursStart();
+        int end = properties.getBusinessHoursEnd();
+        // A window like 18-02 wraps past midnight
+        return start <= end ? hour >= start && hour < end : hour >= start || hour < end;
+    }
+
+    private static LocalDateTime expiresAt(Object value) {
+        if (!(value instanceof String text)) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(text).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Ollama reports untagged models as ":latest"
+     */
+    private static String key(String model) {
+        if (model == null) {
+            return "";
+        }
+        return model.indexOf(':') >= 0 ? model : model + ":latest";
+    }
+
+    /**
+     * Last known residency of one managed model; written by the residency thread and by request threads
+     */
+    private static final class ModelState {
+
+        final String model;
+        final AtomicLong coldStarts = new AtomicLong();
+        final AtomicLong preloads = new AtomicLong();
+        volatile boolean loaded;
+        volatile LocalDateTime expiresAt;
+        volatile LocalDateTime lastRequestAt;
+        volatile LocalDateTime lastPingAt;
+
+        ModelState(String model) {
+            this.model = model;
+        }
+    }
+
+}
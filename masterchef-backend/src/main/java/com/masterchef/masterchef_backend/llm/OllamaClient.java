@@ -1,6 +1,8 @@
 package com.masterchef.masterchef_backend.llm;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -26,35 +28,58 @@ public class OllamaClient implements LlmClient{
     private final RestTemplate restTemplate;
     private final String baseUrl;
     private final String defaultModel;
+    private final boolean structuredOutput;
+    private final ModelResidencyManager residencyManager;
 
     public OllamaClient(
         RestTemplate restTemplate, 
         @Value("${llm.ollama.base-url}") String baseUrl,
-        @Value("${llm.ollama.model}") String defaultModel
+        @Value("${llm.ollama.model}") String defaultModel,
+        @Value("${llm.ollama.structured-output:true}") boolean structuredOutput,
+        ModelResidencyManager residencyManager
     ){
         this.restTemplate = restTemplate;
         this.baseUrl = baseUrl;
         this.defaultModel = defaultModel;
+        this.structuredOutput = structuredOutput;
+        this.residencyManager = residencyManager;
     }
 
     @Override
     public LlmResponse generate(LlmRequest request) {
         long startTime = System.currentTimeMillis();
+        // Routed tier model, or the default; failures are reported against it too
+        String model = request.getModel() != null ? request.getModel() : defaultModel;
 
         try {
             log.debug("Sending request to Ollama: model={}, promptLength={}", 
-                request.getModel(), request.getPrompt().length()
+                model, request.getPrompt().length()
             );
 
             // Build Ollama API request body
-            Map<String, Object> requestBody = Map.of(
-                "model", request.getModel() != null ? request.getModel() : defaultModel,
-                "prompt", request.getPrompt(),
-                "stream", false,
-                "options", Map.of(
-                    "temperature", request.getTemperature()
-                )
-            );
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("model", model);
+            requestBody.put("prompt", request.getPrompt());
+            requestBody.put("stream", false);
+            requestBody.put("options", Map.of(
+                "temperature", request.getTemperature()
+            ));
+
+            // Structured outputs: generation is constrained to the JSON schema
+            if (structuredOutput && request.getFormat() != null) {
+                requestBody.put("format", request.getFormat());
+            }
+
+            // Continue from an earlier generation (refinements): its tokens are not re-sent as prompt text
+            if (request.getContext() != null) {
+                requestBody.put("context", request.getContext());
+            }
+
+            // Keep the model loaded between requests (see ModelResidencyManager)
+            Long keepAlive = residencyManager.keepAliveSeconds();
+            if (keepAlive != null) {
+                requestBody.put("keep_alive", keepAlive);
+            }
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
@@ -72,15 +97,26 @@ public class OllamaClient implements LlmClient{
                 String content = (String) body.get("response");
 
                 long latency = System.currentTimeMillis() - startTime;
+                Integer promptEvalCount = intOrNull(body.get("prompt_eval_count"));
+                Integer evalCount = intOrNull(body.get("eval_count"));
+                residencyManager.recordGeneration(model, longOrNull(body.get("load_duration")));
 
-                log.info("Ollama generation successful: latency={}ms, responseLength={}",
-                    latency, content != null ? content.length() : 0
+                log.info("Ollama generation successful: latency={}ms, responseLength={}, promptTokens={}, outputTokens={}",
+                    latency, content != null ? content.length() : 0, promptEvalCount, evalCount
                 );
 
+                // Reported token counts when available, the character-based estimate otherwise
+                int tokensUsed = promptEvalCount != null && evalCount != null
+                    ? promptEvalCount + evalCount
+                    : estimateTokens(request.getPrompt() + content);
+
                 return LlmResponse.builder()
                     .content(content)
-                    .model((String) body.getOrDefault("model", defaultModel))
-                    .tokensUsed(estimateTokens(request.getPrompt() + content))
+                    .model((String) body.getOrDefault("model", model))
+                    .tokensUsed(tokensUsed)
+                    .promptEvalCount(promptEvalCount)
+                    .evalCount(evalCount)
+                    .context(intArrayOrNull(body.get("context")))
                     .costCents(0)
                     .cached(false)
                     .latencyMs(latency)
@@ -93,10 +129,10 @@ public class OllamaClient implements LlmClient{
 
         } catch (RestClientException e){
             long latency = System.currentTimeMillis() - startTime;
-            log.error("Ollama generation failed: {}", e.getMessage(), e);
+            log.error("Ollama generation failed: model={}, error={}", model, e.getMessage(), e);
 
             return LlmResponse.builder()
-                .model(defaultModel)
+                .model(model)
                 .cached(false)
                 .latencyMs(latency)
                 .generatedAt(LocalDateTime.now())
@@ -125,6 +161,28 @@ public class OllamaClient implements LlmClient{
         return defaultModel;
     }
 
+    private static Integer intOrNull(Object value) {
+        return value instanceof Number number ? number.intValue() : null;
+    }
+
+    private static int[] intArrayOrNull(Object value) {
+        if (!(value instanceof List<?> list)) {
+            return null;
+        }
+        int[] values = new int[list.size()];
+        for (int i = 0; i < values.length; i++) {
+            if (!(list.get(i) instanceof Number number)) {
+                return null;
+            }
+            values[i] = number.intValue();
+        }
+        return values;
+    }
+
+    private static Long longOrNull(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
     @Override
     public int estimateTokens(String text) {
         // Rough estimation: ~4 characters per token
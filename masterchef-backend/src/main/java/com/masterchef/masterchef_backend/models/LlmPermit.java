@@ -0,0 +1,32 @@
+package com.masterchef.masterchef_backend.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "llm_permits")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LlmPermit {
+
+    @Id
+    @Column(name = "slot")
+    private Integer slot;
+
+    @Column(name = "holder_id", length = 100)
+    private String holderId;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+}
@@ -6,9 +6,7 @@ import java.util.List;
 import java.util.UUID;
 
 import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
-import org.hibernate.type.SqlTypes;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -68,17 +66,12 @@ public class Recipe {
     @Builder.Default
     private List<String> ingredientsUsed = new ArrayList<>();
 
-    @JdbcTypeCode(SqlTypes.JSON)
-    @Column(name = "instructions", columnDefinition = "JSONB")
-    private String instructions;
-
-    @JdbcTypeCode(SqlTypes.JSON)
-    @Column(name = "ingredients", columnDefinition = "JSONB")
-    private String ingredients;
-
-    @JdbcTypeCode(SqlTypes.JSON)
-    @Column(name = "nutrition_info", columnDefinition = "JSONB")
-    private String nutritionInfo;
+    /**
+     * Shared, content-addressed instructions/ingredients/nutrition (see RecipeBody)
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "body_hash", nullable = false)
+    private RecipeBody body;
 
     @Column(name = "tags", columnDefinition = "TEXT[]")
     @Builder.Default
@@ -0,0 +1,55 @@
+package com.masterchef.masterchef_backend.models;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Content-addressed recipe content, shared by every recipe with identical content
+ * Never updated in place: a changed body is a new row with a new hash
+ */
+@Entity
+@Immutable
+@Table(name = "recipe_bodies")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipeBody {
+
+    @Id
+    @Column(name = "body_hash", length = 64)
+    private String bodyHash;
+
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "instructions", columnDefinition = "JSONB")
+    private String instructions;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "ingredients", columnDefinition = "JSONB")
+    private String ingredients;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "nutrition_info", columnDefinition = "JSONB")
+    private String nutritionInfo;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+}
@@ -6,6 +6,8 @@ import java.util.List;
 import java.util.UUID;
 
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -45,12 +47,28 @@ public class RecipeGeneration {
     @Builder.Default
     private List<String> dietaryPreferences = new ArrayList<>();
 
-    @Column(name = "prompt", nullable = false, columnDefinition = "TEXT")
+    // Legacy rows only; newer rows reference a prompt template instead
+    @Column(name = "prompt", columnDefinition = "TEXT")
     private String prompt;
 
+    @Column(name = "template_id", length = 100)
+    private String templateId;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "prompt_params", columnDefinition = "JSONB")
+    private String promptParams;
+
+    // Null for cache hits: the response lives in llm_cache under cache_key
     @Column(name = "raw_response", columnDefinition = "TEXT")
     private String rawResponse;
 
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    // SHA-256 of the response a cache hit was served; the cache entry only resolves the row while it still matches
+    @Column(name = "response_hash", length = 64)
+    private String responseHash;
+
     @Column(name = "model_used", nullable = false, length = 100)
     private String modelUsed;
 
@@ -0,0 +1,47 @@
+package com.masterchef.masterchef_backend.models;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "token_family_revocations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenFamilyRevocation {
+
+    public static final String LOGOUT = "LOGOUT";
+    public static final String REUSE = "REUSE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "family_id", nullable = false)
+    private UUID familyId;
+
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "reason", nullable = false, length = 50)
+    private String reason;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+}
@@ -46,6 +46,17 @@ public class User {
     @Builder.Default
     private List<String> dietaryPreferences = new ArrayList<>();
 
+    @Column(name = "plan", nullable = false, length = 50)
+    @Builder.Default
+    private String plan = "FREE";
+
+    /**
+     * USER or ADMIN (admin endpoints)
+     */
+    @Column(name = "role", nullable = false, length = 20)
+    @Builder.Default
+    private String role = "USER";
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
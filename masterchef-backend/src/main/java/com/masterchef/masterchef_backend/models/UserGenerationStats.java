@@ -0,0 +1,51 @@
+package com.masterchef.masterchef_backend.models;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-user metrics rollup; written only through upserts (see UserStatsService)
+ */
+@Entity
+@Table(name = "user_generation_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserGenerationStats {
+
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "total_generations", nullable = false)
+    private long totalGenerations;
+
+    @Column(name = "cache_hits", nullable = false)
+    private long cacheHits;
+
+    @Column(name = "total_tokens_used", nullable = false)
+    private long totalTokensUsed;
+
+    @Column(name = "latency_samples", nullable = false)
+    private long latencySamples;
+
+    @Column(name = "latency_total_ms", nullable = false)
+    private long latencyTotalMs;
+
+    @Column(name = "recipes_saved", nullable = false)
+    private long recipesSaved;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+}
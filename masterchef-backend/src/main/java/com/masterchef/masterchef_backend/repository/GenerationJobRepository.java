@@ -0,0 +1,87 @@
+package com.masterchef.masterchef_backend.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.masterchef.masterchef_backend.models.GenerationJob;
+
+@Repository
+public interface GenerationJobRepository extends JpaRepository<GenerationJob, UUID> {
+
+    /**
+     * Lock jobs that are due (queued past their backoff) or abandoned (lock expired)
+     * SKIP LOCKED lets several workers poll concurrently without blocking each other
+     */
+    @Query(value = "SELECT * FROM generation_jobs "
+            + "WHERE (status = 'QUEUED' AND next_attempt_at <= LOCALTIMESTAMP) "
+            + "OR (status = 'RUNNING' AND locked_until < LOCALTIMESTAMP) "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<GenerationJob> lockClaimableJobs(@Param("limit") int limit);
+
+    /**
+     * Start the next attempt of locked jobs on a worker
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE generation_jobs SET status = 'RUNNING', attempts = attempts + 1, locked_by = :workerId, "
+            + "locked_until = LOCALTIMESTAMP + make_interval(secs => :lockSeconds) "
+            + "WHERE id IN (:ids)", nativeQuery = true)
+    int markRunning(@Param("ids") Collection<UUID> ids, @Param("workerId") String workerId,
+            @Param("lockSeconds") long lockSeconds);
+
+    /**
+     * Heartbeat: extend the locks of jobs a worker is still running
+     */
+    @Modifying
+    @Query(value = "UPDATE generation_jobs SET locked_until = LOCALTIMESTAMP + make_interval(secs => :lockSeconds) "
+            + "WHERE id IN (:ids) AND status = 'RUNNING' AND locked_by = :workerId", nativeQuery = true)
+    int extendLocks(@Param("ids") Collection<UUID> ids, @Param("workerId") String workerId,
+            @Param("lockSeconds") long lockSeconds);
+
+    /**
+     * Record a successful attempt, only while the worker still holds that attempt's lock
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE generation_jobs SET status = 'SUCCEEDED', recipe_id = :recipeId, error_message = NULL, "
+            + "locked_by = NULL, locked_until = NULL, completed_at = LOCALTIMESTAMP "
+            + "WHERE id = :id AND status = 'RUNNING' AND locked_by = :workerId AND attempts = :attempts",
+            nativeQuery = true)
+    int markSucceeded(@Param("id") UUID id, @Param("workerId") String workerId, @Param("attempts") int attempts,
+            @Param("recipeId") UUID recipeId);
+
+    /**
+     * Requeue a failed attempt after a backoff, only while the worker still holds that attempt's lock
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE generation_jobs SET status = 'QUEUED', error_message = :errorMessage, "
+            + "locked_by = NULL, locked_until = NULL, "
+            + "next_attempt_at = LOCALTIMESTAMP + make_interval(secs => :backoffSeconds) "
+            + "WHERE id = :id AND status = 'RUNNING' AND locked_by = :workerId AND attempts = :attempts",
+            nativeQuery = true)
+    int markRetry(@Param("id") UUID id, @Param("workerId") String workerId, @Param("attempts") int attempts,
+            @Param("errorMessage") String errorMessage, @Param("backoffSeconds") double backoffSeconds);
+
+    /**
+     * Fail a job permanently, only while the worker still holds that attempt's lock
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE generation_jobs SET status = 'FAILED', error_message = :errorMessage, "
+            + "locked_by = NULL, locked_until = NULL, completed_at = LOCALTIMESTAMP "
+            + "WHERE id = :id AND status = 'RUNNING' AND locked_by = :workerId AND attempts = :attempts",
+            nativeQuery = true)
+    int markFailed(@Param("id") UUID id, @Param("workerId") String workerId, @Param("attempts") int attempts,
+            @Param("errorMessage") String errorMessage);
+
+    /**
+     * Find a job owned by the given user (ownership check for polling/SSE)
+     */
+    Optional<GenerationJob> findByIdAndUserId(UUID id, UUID userId);
+
+}
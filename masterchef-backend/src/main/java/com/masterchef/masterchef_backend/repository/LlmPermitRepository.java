@@ -0,0 +1,78 @@
+package com.masterchef.masterchef_backend.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.masterchef.masterchef_backend.models.LlmPermit;
+
+/**
+ * Lease operations on the global LLM permit table
+ * All timestamps use the database clock so node clock skew cannot break leases
+ */
+@Repository
+public interface LlmPermitRepository extends JpaRepository<LlmPermit, Integer> {
+
+    /**
+     * Lock up to :limit free or expired slots, skipping rows other nodes are claiming
+     * Must run in the same transaction as assignSlots
+     */
+    @Query(value = "SELECT slot FROM llm_permits "
+            + "WHERE holder_id IS NULL OR lease_expires_at < LOCALTIMESTAMP "
+            + "ORDER BY slot LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Integer> lockFreeSlots(@Param("limit") int limit);
+
+    /**
+     * Lease the given slots to a node
+     */
+    @Modifying
+    @Query(value = "UPDATE llm_permits SET holder_id = :holder, "
+            + "lease_expires_at = LOCALTIMESTAMP + make_interval(secs => :ttlSeconds) "
+            + "WHERE slot IN (:slots)", nativeQuery = true)
+    int assignSlots(@Param("slots") Collection<Integer> slots, @Param("holder") String holder,
+            @Param("ttlSeconds") long ttlSeconds);
+
+    /**
+     * Extend the leases a node still holds (heartbeat)
+     */
+    @Modifying
+    @Query(value = "UPDATE llm_permits SET lease_expires_at = LOCALTIMESTAMP + make_interval(secs => :ttlSeconds) "
+            + "WHERE holder_id = :holder AND slot IN (:slots)", nativeQuery = true)
+    int renewLeases(@Param("slots") Collection<Integer> slots, @Param("holder") String holder,
+            @Param("ttlSeconds") long ttlSeconds);
+
+    /**
+     * Slots from the given set that are still leased to the node
+     */
+    @Query(value = "SELECT slot FROM llm_permits WHERE holder_id = :holder AND slot IN (:slots)", nativeQuery = true)
+    List<Integer> findHeldSlots(@Param("slots") Collection<Integer> slots, @Param("holder") String holder);
+
+    /**
+     * Give slots back to the shared pool
+     */
+    @Modifying
+    @Query(value = "UPDATE llm_permits SET holder_id = NULL, lease_expires_at = NULL "
+            + "WHERE holder_id = :holder AND slot IN (:slots)", nativeQuery = true)
+    int releaseSlots(@Param("slots") Collection<Integer> slots, @Param("holder") String holder);
+
+    /**
+     * Make sure slots 0..budget-1 exist
+     */
+    @Modifying
+    @Query(value = "INSERT INTO llm_permits(slot) SELECT generate_series(0, :budget - 1) "
+            + "ON CONFLICT (slot) DO NOTHING", nativeQuery = true)
+    int seedSlots(@Param("budget") int budget);
+
+    /**
+     * Remove slots beyond the configured budget
+     */
+    @Modifying
+    @Query(value = "DELETE FROM llm_permits WHERE slot >= :budget", nativeQuery = true)
+    int trimSlots(@Param("budget") int budget);
+
+}
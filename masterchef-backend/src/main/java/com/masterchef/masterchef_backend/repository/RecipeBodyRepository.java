@@ -0,0 +1,25 @@
+package com.masterchef.masterchef_backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.masterchef.masterchef_backend.models.RecipeBody;
+
+@Repository
+public interface RecipeBodyRepository extends JpaRepository<RecipeBody, String> {
+
+    /**
+     * Delete up to batchSize bodies no recipe references, older than graceSeconds
+     */
+    @Modifying
+    @Query(value = "DELETE FROM recipe_bodies WHERE body_hash IN ("
+            + "SELECT b.body_hash FROM recipe_bodies b "
+            + "WHERE b.created_at < LOCALTIMESTAMP - make_interval(secs => :graceSeconds) "
+            + "AND NOT EXISTS (SELECT 1 FROM recipes r WHERE r.body_hash = b.body_hash) "
+            + "LIMIT :batchSize)", nativeQuery = true)
+    int deleteOrphans(@Param("graceSeconds") long graceSeconds, @Param("batchSize") int batchSize);
+
+}
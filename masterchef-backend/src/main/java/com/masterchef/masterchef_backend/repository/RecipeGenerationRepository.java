@@ -1,6 +1,7 @@
 package com.masterchef.masterchef_backend.repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.domain.Page;
@@ -20,6 +21,32 @@ public interface RecipeGenerationRepository extends JpaRepository<RecipeGenerati
      */
     Page<RecipeGeneration> findByUserIdOrderByCreatedAtDesc(UUID userId, Pageable pageable);
 
+    /**
+     * First page of a user's generation history, newest first (keyset pagination)
+     */
+    @Query(value = "SELECT * FROM recipe_generations WHERE user_id = :userId "
+            + "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<RecipeGeneration> findFirstPageByUserId(@Param("userId") UUID userId, @Param("limit") int limit);
+
+    /**
+     * Page of a user's generation history strictly after the cursor (created_at, id)
+     */
+    @Query(value = "SELECT * FROM recipe_generations WHERE user_id = :userId "
+            + "AND (created_at, id) < (:createdAt, :id) "
+            + "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<RecipeGeneration> findPageByUserIdAfter(@Param("userId") UUID userId, @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id, @Param("limit") int limit);
+
+    /**
+     * System-wide drill-down into a time window, optionally by status (admin analytics)
+     * Served by the BRIN index on created_at
+     */
+    @Query(value = "SELECT * FROM recipe_generations WHERE created_at >= :from AND created_at < :to "
+            + "AND (CAST(:status AS VARCHAR) IS NULL OR status = :status) "
+            + "ORDER BY created_at LIMIT :limit", nativeQuery = true)
+    List<RecipeGeneration> findInWindow(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+            @Param("status") String status, @Param("limit") int limit);
+
     /**
      * Find recent generation for a user (last N records)
      */
@@ -1,15 +1,20 @@
 package com.masterchef.masterchef_backend.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.masterchef.masterchef_backend.dto.RecipeSummaryResponse;
 import com.masterchef.masterchef_backend.models.Recipe;
 
 @Repository
@@ -20,11 +25,48 @@ public interface RecipeRepository extends JpaRepository<Recipe, UUID> {
      */
     List<Recipe> findByUserIdAndIsSavedTrue(UUID userId);
 
+    /**
+     * Load a recipe together with its shared body (detail view, export)
+     */
+    @EntityGraph(attributePaths = "body")
+    @Query("SELECT r FROM Recipe r WHERE r.id = :id")
+    Optional<Recipe> findWithBodyById(@Param("id") UUID id);
+
     /**
      * Find all recipes for a user with pagination
      */
     Page<Recipe> findByUserId(UUID userId, Pageable pageable);
 
+    /**
+     * First page of recipe cards, newest first (keyset pagination)
+     * Reads only the summary columns, never the JSONB bodies or ingredient arrays
+     */
+    @Query("SELECT new com.masterchef.masterchef_backend.dto.RecipeSummaryResponse("
+            + "r.id, r.title, r.cuisine, r.difficulty, r.totalTime, r.tags, r.createdAt) "
+            + "FROM Recipe r WHERE r.user.id = :userId "
+            + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<RecipeSummaryResponse> findSummariesByUserId(@Param("userId") UUID userId, Limit limit);
+
+    /**
+     * Page of recipe cards strictly after the cursor (created_at, id)
+     * The leading created_at <= :createdAt is the index range bound on idx_recipes_user_created_id;
+     * the OR only drops the cursor's own timestamp rows past the cursor id
+     * (JPQL has no row-value comparison, and the constructor projection needs JPQL)
+     */
+    @Query("SELECT new com.masterchef.masterchef_backend.dto.RecipeSummaryResponse("
+            + "r.id, r.title, r.cuisine, r.difficulty, r.totalTime, r.tags, r.createdAt) "
+            + "FROM Recipe r WHERE r.user.id = :userId "
+            + "AND r.createdAt <= :createdAt "
+            + "AND (r.createdAt < :createdAt OR r.id < :id) "
+            + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<RecipeSummaryResponse> findSummariesByUserIdAfter(@Param("userId") UUID userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Limit limit);
+
+    /**
+     * Count all recipes of a user (optional total for cursor pages)
+     */
+    long countByUserId(UUID userId);
+
     /**
      * Find recipes by user and saved status with pagination
      */
@@ -0,0 +1,30 @@
+package com.masterchef.masterchef_backend.repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.masterchef.masterchef_backend.models.RefreshToken;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+    /**
+     * Lock a refresh token row for rotation (concurrent refreshes of one token serialize here)
+     */
+    @Query(value = "SELECT * FROM refresh_tokens WHERE jti = :jti FOR UPDATE", nativeQuery = true)
+    Optional<RefreshToken> lockByJti(@Param("jti") UUID jti);
+
+    /**
+     * Remove tokens past their expiry (they can no longer be presented)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM refresh_tokens WHERE expires_at < LOCALTIMESTAMP", nativeQuery = true)
+    int deleteExpired();
+
+}
@@ -0,0 +1,56 @@
+package com.masterchef.masterchef_backend.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.masterchef.masterchef_backend.models.TokenFamilyRevocation;
+
+/**
+ * Revoked token families
+ * Timestamps use the database clock so every node agrees on the sync window
+ */
+@Repository
+public interface TokenFamilyRevocationRepository extends JpaRepository<TokenFamilyRevocation, Long> {
+
+    /**
+     * Record a revocation valid for ttlSeconds (the refresh token lifetime)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO token_family_revocations(family_id, user_id, reason, expires_at) "
+            + "VALUES (:familyId, :userId, :reason, LOCALTIMESTAMP + make_interval(secs => :ttlSeconds))",
+            nativeQuery = true)
+    int insertRevocation(@Param("familyId") UUID familyId, @Param("userId") UUID userId,
+            @Param("reason") String reason, @Param("ttlSeconds") long ttlSeconds);
+
+    /**
+     * Revocations recorded in the last lookbackSeconds (incremental sync)
+     */
+    @Query(value = "SELECT * FROM token_family_revocations "
+            + "WHERE revoked_at > LOCALTIMESTAMP - make_interval(secs => :lookbackSeconds) "
+            + "AND expires_at > LOCALTIMESTAMP", nativeQuery = true)
+    List<TokenFamilyRevocation> findRecent(@Param("lookbackSeconds") long lookbackSeconds);
+
+    /**
+     * All revocations still in force (full reload)
+     */
+    @Query(value = "SELECT * FROM token_family_revocations WHERE expires_at > LOCALTIMESTAMP", nativeQuery = true)
+    List<TokenFamilyRevocation> findActive();
+
+    /**
+     * Exact membership check, used only when the in-memory filter reports a possible match
+     */
+    @Query(value = "SELECT EXISTS(SELECT 1 FROM token_family_revocations "
+            + "WHERE family_id = :familyId AND expires_at > LOCALTIMESTAMP)", nativeQuery = true)
+    boolean isFamilyRevoked(@Param("familyId") UUID familyId);
+
+    @Modifying
+    @Query(value = "DELETE FROM token_family_revocations WHERE expires_at < LOCALTIMESTAMP", nativeQuery = true)
+    int deleteExpired();
+
+}
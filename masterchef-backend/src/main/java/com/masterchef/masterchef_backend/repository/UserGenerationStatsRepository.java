@@ -0,0 +1,27 @@
+package com.masterchef.masterchef_backend.repository;
+
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.masterchef.masterchef_backend.models.UserGenerationStats;
+
+@Repository
+public interface UserGenerationStatsRepository extends JpaRepository<UserGenerationStats, UUID> {
+
+    /**
+     * Move a user's saved-recipe counter (creating the row on first use)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_generation_stats(user_id, recipes_saved, updated_at) "
+            + "VALUES (:userId, GREATEST(:delta, 0), LOCALTIMESTAMP) "
+            + "ON CONFLICT (user_id) DO UPDATE SET "
+            + "recipes_saved = GREATEST(user_generation_stats.recipes_saved + :delta, 0), "
+            + "updated_at = LOCALTIMESTAMP", nativeQuery = true)
+    int adjustRecipesSaved(@Param("userId") UUID userId, @Param("delta") long delta);
+
+}
@@ -4,6 +4,9 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.masterchef.masterchef_backend.models.User;
@@ -22,4 +25,11 @@ public interface UserRepository extends JpaRepository<User, UUID> {
      */
     boolean existsByEmail(String email);
 
+    /**
+     * Replace a user's password hash (BCrypt strength upgrades on login)
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.email = :email")
+    int updatePasswordHash(@Param("email") String email, @Param("passwordHash") String passwordHash);
+
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.masterchef.masterchef_backend.security;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Authenticated principal built from verified access token claims
+ *
+ * Injected into controllers with @AuthenticationPrincipal; carries everything
+ * a request needs about the caller, so no user lookup hits the database.
+ * The plan and role are as of token issue and refresh with the access token.
+ * familyId identifies the login session (token family) the token belongs to.
+ */
+public record AuthenticatedUser(UUID id, String email, String plan, String role, UUID familyId) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    /**
+     * ROLE_ authority for the role (tokens issued before roles existed count as USER)
+     */
+    public List<GrantedAuthority> authorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + (role != null ? role : "USER")));
+    }
+
+}
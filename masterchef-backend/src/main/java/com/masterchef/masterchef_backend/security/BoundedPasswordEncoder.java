@@ -0,0 +1,126 @@
+package com.masterchef.masterchef_backend.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.masterchef.masterchef_backend.config.PasswordHashingProperties;
+import com.masterchef.masterchef_backend.exception.PasswordHashingUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * BCrypt encoder that runs every hash on a dedicated, bounded thread pool
+ *
+ * Design:
+ * Fixed pool of hashing threads with a bounded queue (AbortPolicy)
+ * A full queue or a wait past the timeout fails fast with PasswordHashingUnavailableException (503 + Retry-After)
+ * Request threads only wait; the CPU-heavy work is capped at the pool size
+ * upgradeEncoding delegates to BCrypt, so hashes below the configured strength are re-hashed on login
+ * Pool metrics are published under the name "password.hashing"
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final long retryAfterSeconds;
+    private final Counter rejectedCounter;
+
+    public BoundedPasswordEncoder(PasswordHashingProperties properties, MeterRegistry meterRegistry) {
+        this.delegate = new BCryptPasswordEncoder(properties.getBcryptStrength());
+        this.timeoutMs = properties.getTimeout().toMillis();
+        this.retryAfterSeconds = Math.max(1, properties.getRetryAfter().toSeconds());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                properties.getThreads(),
+                properties.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable);
+                    thread.setName("password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "password.hashing");
+
+        this.rejectedCounter = Counter.builder("password.hashing.rejected")
+                .description("Password hash operations shed because the hashing pool was saturated")
+                .register(meterRegistry);
+
+        log.info("Password hashing pool: threads={}, queue={}, bcryptStrength={}",
+                properties.getThreads(), properties.getQueueCapacity(), properties.getBcryptStrength());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Only inspects the hash prefix; cheap enough for the caller's thread
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw overloaded();
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw overloaded();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private PasswordHashingUnavailableException overloaded() {
+        rejectedCounter.increment();
+        return new PasswordHashingUnavailableException(
+                "Authentication is busy, retry in " + retryAfterSeconds + "s", retryAfterSeconds);
+    }
+
+    /**
+     * Stop the hashing pool (invoked by the container on shutdown)
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+}
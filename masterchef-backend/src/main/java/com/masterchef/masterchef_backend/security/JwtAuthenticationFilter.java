@@ -5,7 +5,6 @@ import java.io.IOException;
 import org.jspecify.annotations.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -24,7 +23,7 @@ import lombok.extern.slf4j.Slf4j;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtTokenProvider jwtTokenProvider;
-    private final UserDetailsServiceImpl userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
 
     /**
      * Extract JWT token from Authorization header
@@ -51,28 +50,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Extract JWT token from request header
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt)) {
-                // Validate and extract username from token
-                String username = jwtTokenProvider.extractUsername(jwt);
+            if (StringUtils.hasText(jwt) && SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Verify signature, expiry and type; the principal comes straight from the claims (no DB lookup)
+                VerifiedAccessToken token = jwtTokenProvider.verifyAccessToken(jwt);
+                AuthenticatedUser user = token.user();
 
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    // Load user details from database
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                if (tokenRevocationService.isRevoked(user.familyId())) {
+                    log.debug("Rejected revoked token for user: {}", user.id());
+                } else {
+                    // Create authentication object
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, null, user.authorities());
 
-                    // Validate the token
-                    if (jwtTokenProvider.validateToken(jwt, userDetails)) {
-                        // Create authentication object
-                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(
+                        new WebAuthenticationDetailsSource().buildDetails(request)
+                    );
 
-                        authentication.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request)
-                        );
+                    // Set authentication in security context
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                        // Set authentication in security context
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-
-                        log.debug("Set authentication for user: {}", username);
-                    }
+                    log.debug("Set authentication for user: {}", user.email());
                 }
             }
         } catch (Exception e) {
@@ -1,11 +1,9 @@
 package com.masterchef.masterchef_backend.security;
 
-import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.function.Function;
 
 import javax.crypto.SecretKey;
 
@@ -14,34 +12,56 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SignatureException;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Issues and verifies JWTs
+ *
+ * The HMAC key and the parser are built once at startup (both are immutable and thread-safe),
+ * and every verification path parses a token exactly once. Access token verifications are
+ * additionally served from VerifiedTokenCache until the token expires.
+ */
 @Slf4j
 @Component
 public class JwtTokenProvider {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
-    @Value("${jwt.access-token-expiration-ms}")
-    private long accessTokenExpirationMs;
-
-    @Value("${jwt.refresh-token-expiration-ms}")
-    private long refreshTokenExpirationMs;
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final long accessTokenExpirationMs;
+    private final long refreshTokenExpirationMs;
+
+    public JwtTokenProvider(
+            @Value("${jwt.secret}") String jwtSecret,
+            @Value("${jwt.access-token-expiration-ms}") long accessTokenExpirationMs,
+            @Value("${jwt.refresh-token-expiration-ms}") long refreshTokenExpirationMs,
+            VerifiedTokenCache verifiedTokenCache) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.accessTokenExpirationMs = accessTokenExpirationMs;
+        this.refreshTokenExpirationMs = refreshTokenExpirationMs;
+    }
 
     /**
      * Generate access token for authenticated user
+     * Carries every claim the request path needs (id, email, plan, role) so requests never load the user;
+     * "fam" ties it to its login session so revoking the family rejects it
      */
-    public String generateAccessToken(UserDetails userDetails, UUID userId) {
+    public String generateAccessToken(UserDetails userDetails, UUID userId, String plan, String role, UUID familyId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId.toString());
+        claims.put("plan", plan);
+        claims.put("role", role);
+        claims.put("fam", familyId.toString());
         claims.put("type", "ACCESS");
         
         return createToken(claims, userDetails.getUsername(), accessTokenExpirationMs);
@@ -49,10 +69,13 @@ public class JwtTokenProvider {
 
     /**
      * Generate refresh token for token renewal
+     * Each refresh token has its own id (jti) so it can be used exactly once
      */
-    public String generateRefreshToken(UserDetails userDetails, UUID userId) {
+    public String generateRefreshToken(UserDetails userDetails, UUID userId, UUID familyId, UUID tokenId) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(Claims.ID, tokenId.toString());
         claims.put("userId", userId.toString());
+        claims.put("fam", familyId.toString());
         claims.put("type", "REFRESH");
         
         return createToken(claims, userDetails.getUsername(), refreshTokenExpirationMs);
@@ -70,105 +93,83 @@ public class JwtTokenProvider {
                 .subject(subject)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     /**
-     * Extract username (email) from token
-     */
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    /**
-     * Extract userId from token
-     */
-    public UUID extractUserId(String token) {
-        String userIdString = extractClaim(token, claims -> claims.get("userId", String.class));
-        return UUID.fromString(userIdString);
-    }
-
-    /**
-     * Extract token type (ACCESS or REFRESH)
-     */
-    public String extractTokenType(String token) {
-        return extractClaim(token, claims -> claims.get("type", String.class));
-    }
-
-    /**
-     * Extract expiration date from token
+     * Verify signature and expiry and extract all claims (the single parse)
      */
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private Claims extractAllClaims(String token) {
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
 
     /**
-     * Extract a specific claim from token
+     * Verify an access token and build the request principal from its claims
+     * Repeat presentations of the same token are answered from the verified-token cache
+     *
+     * @throws JwtException if the token is invalid, expired or not an access token
      */
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
+    public VerifiedAccessToken verifyAccessToken(String token) {
+        String digest = verifiedTokenCache.digest(token);
+        VerifiedAccessToken cached = verifiedTokenCache.get(digest);
+        if (cached != null) {
+            return cached;
+        }
 
-    /**
-     * Extract all claims from token
-     */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith((SecretKey) getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        VerifiedAccessToken verified = parseAccessToken(token);
+        verifiedTokenCache.put(digest, verified);
+        return verified;
     }
 
-    /**
-     * Check if token is expired
-     */
-    public boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
+    private VerifiedAccessToken parseAccessToken(String token) {
+        Claims claims = extractAllClaims(token);
 
-    /**
-     * Validate token against user details
-     */
-    public boolean validateToken(String token, UserDetails userDetails) {
-        try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-        } catch (SignatureException e) {
-            log.error("Invalid JWT signature: {}", e.getMessage());
-        } catch (MalformedJwtException e) {
-            log.error("Invalid JWT token: {}", e.getMessage());
-        } catch (ExpiredJwtException e) {
-            log.error("JWT token is expired: {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            log.error("JWT token is unsupported: {}", e.getMessage());
-        } catch (IllegalArgumentException e) {
-            log.error("JWT claims string is empty: {}", e.getMessage());
+        if (!"ACCESS".equals(claims.get("type", String.class))) {
+            throw new UnsupportedJwtException("Not an access token");
         }
-        return false;
+
+        AuthenticatedUser user = new AuthenticatedUser(
+                UUID.fromString(claims.get("userId", String.class)),
+                claims.getSubject(),
+                claims.get("plan", String.class),
+                claims.get("role", String.class),
+                parseUuid(claims.get("fam", String.class)));
+
+        return new VerifiedAccessToken(
+                user,
+                claims.getIssuedAt().getTime(),
+                claims.getExpiration().getTime());
     }
 
     /**
-     * Validate refresh token
+     * Verify a refresh token and extract its identity claims in one parse
+     *
+     * @return the verified claims, or null if the token is invalid, expired or not a refresh token
      */
-    public boolean validateRefreshToken(String token) {
+    public VerifiedRefreshToken verifyRefreshToken(String token) {
         try {
-            String tokenType = extractTokenType(token);
-            return "REFRESH".equals(tokenType) && !isTokenExpired(token);
+            Claims claims = extractAllClaims(token);
+            if (!"REFRESH".equals(claims.get("type", String.class))) {
+                return null;
+            }
+
+            return new VerifiedRefreshToken(
+                    claims.getSubject(),
+                    UUID.fromString(claims.get("userId", String.class)),
+                    parseUuid(claims.getId()),
+                    parseUuid(claims.get("fam", String.class)));
         } catch (Exception e) {
             log.error("Invalid refresh token: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
 
     /**
-     * Get signing key for JWT
+     * Tokens issued before rotation was introduced carry no jti/fam
      */
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static UUID parseUuid(String value) {
+        return value != null ? UUID.fromString(value) : null;
     }
 
     /**
@@ -177,5 +178,12 @@ public class JwtTokenProvider {
     public long getAccessTokenExpirationSeconds() {
         return accessTokenExpirationMs / 1000;
     }
+
+    /**
+     * Get refresh token expiration in milliseconds
+     */
+    public long getRefreshTokenExpirationMs() {
+        return refreshTokenExpirationMs;
+    }
     
 }
\ No newline at end of file
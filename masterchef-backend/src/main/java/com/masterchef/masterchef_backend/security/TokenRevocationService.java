@@ -0,0 +1,273 @@
+package com.masterchef.masterchef_backend.security;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.masterchef.masterchef_backend.config.TokenRevocationProperties;
+import com.masterchef.masterchef_backend.models.TokenFamilyRevocation;
+import com.masterchef.masterchef_backend.repository.TokenFamilyRevocationRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Token family revocation, checked on every authenticated request
+ *
+ * A token family is one login session: its access and refresh tokens carry the
+ * same "fam" claim. Revoking a family (logout, refresh token reuse) rejects all of them.
+ *
+ * Design:
+ * token_family_revocations is the source of truth; every node polls it into memory
+ * Membership check: lock-free Bloom filter first; a miss (the common case) is final
+ * A Bloom positive is confirmed in the exact set, and only if the exact set is full
+ * or misses it, in the database (DB-negative answers are cached until the next reload)
+ * Revocations made on this node apply locally as soon as their transaction commits
+ * The Bloom filter is rebuilt from the table on each full reload, dropping expired families
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private final TokenFamilyRevocationRepository revocationRepository;
+    private final TokenRevocationProperties properties;
+    private final long refreshTtlSeconds;
+
+    private volatile LockFreeBloomFilter bloom;
+    private final Map<UUID, Boolean> exact = new ConcurrentHashMap<>();
+    private final Map<UUID, Boolean> confirmedNotRevoked = new ConcurrentHashMap<>();
+    private volatile long lastSyncNanos;
+    private volatile long lastFullReloadNanos;
+
+    private final Counter revokedHitCounter;
+    private final Counter dbFallbackCounter;
+
+    public TokenRevocationService(
+            TokenFamilyRevocationRepository revocationRepository,
+            TokenRevocationProperties properties,
+            @Value("${jwt.refresh-token-expiration-ms}") long refreshTokenExpirationMs,
+            MeterRegistry meterRegistry) {
+        this.revocationRepository = revocationRepository;
+        this.properties = properties;
+        this.refreshTtlSeconds = Math.max(1, refreshTokenExpirationMs / 1000);
+        this.bloom = newBloom();
+
+        this.revokedHitCounter = Counter.builder("auth.revocations.rejected")
+                .description("Requests rejected because their token family is revoked")
+                .register(meterRegistry);
+
+        this.dbFallbackCounter = Counter.builder("auth.revocations.db.fallback")
+                .description("Revocation checks that needed a database lookup (Bloom filter positives)")
+                .register(meterRegistry);
+
+        Gauge.builder("auth.revocations.active", exact, Map::size)
+                .description("Revoked token families held in the exact set")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check whether a token family has been revoked
+     * O(1) and lock-free unless the Bloom filter reports a possible match
+     */
+    public boolean isRevoked(UUID familyId) {
+        if (familyId == null || !bloom.mightContain(familyId)) {
+            return false;
+        }
+
+        if (exact.containsKey(familyId)) {
+            revokedHitCounter.increment();
+            return true;
+        }
+
+        if (confirmedNotRevoked.containsKey(familyId)) {
+            return false;
+        }
+
+        dbFallbackCounter.increment();
+        boolean revoked;
+        try {
+            revoked = revocationRepository.isFamilyRevoked(familyId);
+        } catch (Exception e) {
+            // Fail closed: a possible revocation we cannot disprove is treated as revoked
+            log.error("Revocation lookup failed for family {}: {}", familyId, e.getMessage());
+            return true;
+        }
+
+        if (revoked) {
+            revokedHitCounter.increment();
+        } else if (confirmedNotRevoked.size() < properties.getMaxExactEntries()) {
+            confirmedNotRevoked.put(familyId, Boolean.TRUE);
+        }
+        return revoked;
+    }
+
+    /**
+     * Revoke a token family cluster-wide
+     * Joins the caller's transaction; this node applies it in memory once that commits
+     */
+    public void revokeFamily(UUID familyId, UUID userId, String reason) {
+        revocationRepository.insertRevocation(familyId, userId, reason, refreshTtlSeconds);
+        log.info("Token family revoked: family={}, user={}, reason={}", familyId, userId, reason);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(familyId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(familyId);
+            }
+        });
+    }
+
+    /**
+     * Pull revocations made by other nodes; periodically rebuild from scratch
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:2000}")
+    public void sync() {
+        long now = System.nanoTime();
+        // A gap longer than the lookback window could have missed rows, so reload everything
+        boolean fullReload = lastFullReloadNanos == 0
+                || now - lastFullReloadNanos >= properties.getFullReloadInterval().toNanos()
+                || now - lastSyncNanos >= properties.getSyncLookback().toNanos();
+
+        try {
+            if (fullReload) {
+                reload();
+                lastFullReloadNanos = now;
+            } else {
+                revocationRepository.findRecent(properties.getSyncLookback().toSeconds())
+                        .forEach(revocation -> apply(revocation.getFamilyId()));
+            }
+            lastSyncNanos = now;
+        } catch (Exception e) {
+            log.error("Token revocation sync failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the Bloom filter and exact set from revocations still in force
+     */
+    private void reload() {
+        List<TokenFamilyRevocation> active = revocationRepository.findActive();
+
+        LockFreeBloomFilter rebuilt = newBloom();
+        active.forEach(revocation -> rebuilt.put(revocation.getFamilyId()));
+
+        // Publish the new filter first so no family is ever absent from both
+        bloom = rebuilt;
+        exact.clear();
+        confirmedNotRevoked.clear();
+        for (TokenFamilyRevocation revocation : active) {
+            if (exact.size() >= properties.getMaxExactEntries()) {
+                break;
+            }
+            exact.put(revocation.getFamilyId(), Boolean.TRUE);
+        }
+
+        log.debug("Token revocations reloaded: active={}, exact={}", active.size(), exact.size());
+    }
+
+    private void apply(UUID familyId) {
+        bloom.put(familyId);
+        if (exact.size() < properties.getMaxExactEntries()) {
+            exact.put(familyId, Boolean.TRUE);
+        }
+        confirmedNotRevoked.remove(familyId);
+    }
+
+    /**
+     * Delete revocations whose families can no longer hold a valid token
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.prune-interval-ms:3600000}")
+    public void pruneExpired() {
+        try {
+            int deleted = revocationRepository.deleteExpired();
+            if (deleted > 0) {
+                log.info("Pruned {} expired token family revocations", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to prune token revocations: {}", e.getMessage());
+        }
+    }
+
+    private LockFreeBloomFilter newBloom() {
+        return new LockFreeBloomFilter(properties.getBloomExpectedInsertions(), properties.getBloomFalsePositiveRate());
+    }
+
+    /**
+     * Bloom filter over UUIDs backed by an AtomicLongArray
+     * Reads are plain volatile loads; inserts OR bits in with CAS, never blocking readers
+     */
+    private static final class LockFreeBloomFilter {
+
+        private final AtomicLongArray words;
+        private final long bits;
+        private final int hashes;
+
+        LockFreeBloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long n = Math.max(1, expectedInsertions);
+            double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+            long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) >>> 6));
+
+            this.words = new AtomicLongArray(wordCount);
+            this.bits = (long) wordCount << 6;
+            this.hashes = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        }
+
+        void put(UUID id) {
+            long h1 = mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+            long h2 = mix(id.getLeastSignificantBits()) | 1L;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+                long mask = 1L << bit;
+                int index = (int) (bit >>> 6);
+                long current;
+                do {
+                    current = words.get(index);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(index, current, current | mask));
+            }
+        }
+
+        boolean mightContain(UUID id) {
+            long h1 = mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+            long h2 = mix(id.getLeastSignificantBits()) | 1L;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * MurmurHash3 64-bit finalizer
+         */
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb34fe1a85ec9L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package com.masterchef.masterchef_backend.security;
 import java.util.ArrayList;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -17,7 +18,7 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -49,4 +50,21 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .disabled(false)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Persist a re-hashed password (called by Spring Security after a successful login
+     * when the stored hash is weaker than the configured BCrypt strength)
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        int updated = userRepository.updatePasswordHash(user.getUsername(), newPassword);
+        if (updated > 0) {
+            log.info("Upgraded password hash for user: {}", user.getUsername());
+        }
+
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
+}
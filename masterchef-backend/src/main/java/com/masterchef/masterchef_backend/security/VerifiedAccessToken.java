@@ -0,0 +1,7 @@
+package com.masterchef.masterchef_backend.security;
+
+/**
+ * Result of verifying an access token: the principal plus the token's validity window
+ */
+public record VerifiedAccessToken(AuthenticatedUser user, long issuedAtMs, long expiresAtMs) {
+}
@@ -0,0 +1,9 @@
+package com.masterchef.masterchef_backend.security;
+
+import java.util.UUID;
+
+/**
+ * Identity claims of a verified refresh token (tokenId/familyId are null for pre-rotation tokens)
+ */
+public record VerifiedRefreshToken(String email, UUID userId, UUID tokenId, UUID familyId) {
+}
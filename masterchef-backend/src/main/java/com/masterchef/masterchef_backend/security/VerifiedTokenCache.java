@@ -0,0 +1,122 @@
+package com.masterchef.masterchef_backend.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded cache of recently verified access tokens
+ *
+ * Clients send the same bearer token on every request for its whole lifetime,
+ * so a hit skips the HMAC check and claims parsing entirely.
+ *
+ * Design:
+ * Keyed by the SHA-256 digest of the token, so raw tokens are never retained
+ * Entries carry the token's own expiry and are ignored/evicted once it passes
+ * When full, expired entries are purged first; if still full the token is simply not cached
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final Map<String, VerifiedAccessToken> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public VerifiedTokenCache(
+            @Value("${jwt.verified-cache.max-entries:10000}") int maxEntries,
+            MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+
+        this.hitCounter = Counter.builder("auth.token.cache")
+                .description("Access token verifications served from the verified-token cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+
+        this.missCounter = Counter.builder("auth.token.cache")
+                .description("Access token verifications served from the verified-token cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+
+        Gauge.builder("auth.token.cache.size", entries, Map::size)
+                .description("Verified access tokens currently cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Digest used as the cache key
+     */
+    public String digest(String token) {
+        byte[] hash = SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    /**
+     * Get a still-valid verification result, or null
+     */
+    public VerifiedAccessToken get(String digest) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+
+        VerifiedAccessToken verified = entries.get(digest);
+        if (verified == null) {
+            missCounter.increment();
+            return null;
+        }
+
+        if (verified.expiresAtMs() <= System.currentTimeMillis()) {
+            entries.remove(digest, verified);
+            missCounter.increment();
+            return null;
+        }
+
+        hitCounter.increment();
+        return verified;
+    }
+
+    public void put(String digest, VerifiedAccessToken verified) {
+        if (maxEntries <= 0) {
+            return;
+        }
+
+        if (entries.size() >= maxEntries) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(digest, verified);
+    }
+
+    /**
+     * Drop entries whose token has expired
+     */
+    @Scheduled(fixedDelayString = "${jwt.verified-cache.sweep-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(verified -> verified.expiresAtMs() <= now);
+    }
+
+}
@@ -2,14 +2,16 @@ package com.masterchef.masterchef_backend.service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.UUID;
 
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.masterchef.masterchef_backend.dto.AuthResponse;
 import com.masterchef.masterchef_backend.dto.LoginRequest;
@@ -19,7 +21,8 @@ import com.masterchef.masterchef_backend.dto.TokenRefreshResponse;
 import com.masterchef.masterchef_backend.models.User;
 import com.masterchef.masterchef_backend.repository.UserRepository;
 import com.masterchef.masterchef_backend.security.JwtTokenProvider;
-import com.masterchef.masterchef_backend.security.UserDetailsServiceImpl;
+import com.masterchef.masterchef_backend.security.TokenRevocationService;
+import com.masterchef.masterchef_backend.security.VerifiedRefreshToken;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,29 +36,40 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
     private final AuthenticationManager authenticationManager;
-    private final UserDetailsServiceImpl userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * Register a new user
+     * Not transactional as a whole: the password is hashed before a DB connection is taken,
+     * then the user and its first token family are written in one short transaction
      */
-    @Transactional
     public AuthResponse register(RegisterRequest request) {
         log.info("Registering new user with email: {}", request.getEmail());
 
-        // Check if email already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
-            log.warn("Registration failed: Email already exists: {}", request.getEmail());
-            throw new RuntimeException("Email already registered");
-        }
+        // Hash first (bounded BCrypt pool, may wait): no connection is held meanwhile
+        String passwordHash = passwordEncoder.encode(request.getPassword());
+        UUID familyId = UUID.randomUUID();
 
-        // Create a new user
-        User user = User.builder()
-                        .name(request.getName())
-                        .email(request.getEmail())
-                        .passwordHash(passwordEncoder.encode(request.getPassword()))
-                        .build();
-        
-        user = userRepository.save(user);
+        Registration registration = transactionTemplate.execute(status -> {
+            // Check if email already exists
+            if (userRepository.existsByEmail(request.getEmail())) {
+                log.warn("Registration failed: Email already exists: {}", request.getEmail());
+                throw new RuntimeException("Email already registered");
+            }
+
+            // Create a new user
+            User saved = userRepository.save(User.builder()
+                            .name(request.getName())
+                            .email(request.getEmail())
+                            .passwordHash(passwordHash)
+                            .build());
+
+            return new Registration(saved, refreshTokenService.startFamily(saved.getId(), familyId));
+        });
+
+        User user = registration.user();
         log.info("User registered successfully: id: {}, email: {}", user.getId(), user.getEmail());
 
         // Generate tokens
@@ -64,9 +78,10 @@ public class AuthService {
                                     .password(user.getPasswordHash())
                                     .authorities(new ArrayList<>())
                                     .build();
-            
-        String accessToken = jwtTokenProvider.generateAccessToken(userDetails, user.getId());
-        String refreshToken = jwtTokenProvider.generateRefreshToken(userDetails, user.getId());
+
+        String accessToken = jwtTokenProvider.generateAccessToken(userDetails, user.getId(), user.getPlan(), user.getRole(), familyId);
+        String refreshToken = jwtTokenProvider.generateRefreshToken(userDetails, user.getId(), familyId,
+                registration.refreshTokenId());
 
         // Build our response back
 
@@ -84,8 +99,8 @@ public class AuthService {
 
     /**
      * Authenticate user and generate tokens 
+     * Not transactional: password verification must not hold a DB connection
      */
-    @Transactional(readOnly = true)
     public AuthResponse login(LoginRequest request) {
         log.info("Login attempt for email: {}", request.getEmail());
 
@@ -104,8 +119,10 @@ public class AuthService {
         log.info("Login successfull for user: id={}, email={}", user.getId(), user.getEmail());
 
         // Generate tokens
-        String accessToken = jwtTokenProvider.generateAccessToken(userDetails, user.getId());
-        String refreshToken = jwtTokenProvider.generateRefreshToken(userDetails, user.getId());
+        UUID familyId = UUID.randomUUID();
+        UUID refreshTokenId = refreshTokenService.startFamily(user.getId(), familyId);
+        String accessToken = jwtTokenProvider.generateAccessToken(userDetails, user.getId(), user.getPlan(), user.getRole(), familyId);
+        String refreshToken = jwtTokenProvider.generateRefreshToken(userDetails, user.getId(), familyId, refreshTokenId);
 
         // Build response
         return AuthResponse.builder()
@@ -122,42 +139,76 @@ public class AuthService {
     }
 
     /**
-     * Refresh access token using refresh token
+     * Rotate a refresh token: the presented token is consumed and a new pair is issued
+     * Replaying a consumed token revokes its whole family (every session token stops working)
      */
-    @Transactional(readOnly = true)
     public TokenRefreshResponse refreshToken(TokenRefreshRequest request) {
         log.info("Token refresh attempt");
 
-        String refreshToken = request.getRefreshToken();
-
-        // Validate refresh token
-        if (!jwtTokenProvider.validateRefreshToken(refreshToken)){
+        // Validate refresh token and extract its claims in a single parse
+        VerifiedRefreshToken token = jwtTokenProvider.verifyRefreshToken(request.getRefreshToken());
+        if (token == null || token.tokenId() == null || token.familyId() == null) {
             log.warn("Invalid refresh token");
-            throw new RuntimeException("Invalid refresh token");
+            throw new BadCredentialsException("Invalid refresh token");
         }
 
-        // Extract username from token
-        String email = jwtTokenProvider.extractUsername(refreshToken);
+        // Revoked families are rejected from memory without touching the database
+        if (tokenRevocationService.isRevoked(token.familyId())) {
+            log.warn("Refresh token from revoked family: {}", token.familyId());
+            throw new BadCredentialsException("Refresh token revoked");
+        }
 
-        // Load user details
-        UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(token.tokenId(), token.familyId(), token.userId());
+        if (rotation.status() == RefreshTokenService.Rotation.Status.REUSED) {
+            throw new BadCredentialsException("Refresh token already used; session revoked");
+        }
+        if (rotation.status() != RefreshTokenService.Rotation.Status.ROTATED) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
 
-        // Get user from database
-        User user = userRepository.findByEmail(email).orElseThrow(
-            () -> new RuntimeException("User not found")
+        // Reload the user so plan and role changes reach the new access token
+        User user = userRepository.findById(token.userId()).orElseThrow(
+            () -> new BadCredentialsException("User not found")
         );
 
-        // Generate new access token
-        String newAccessToken = jwtTokenProvider.generateRefreshToken(userDetails, user.getId());
+        UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
+                                    .username(user.getEmail())
+                                    .password(user.getPasswordHash())
+                                    .authorities(new ArrayList<>())
+                                    .build();
+
+        // Generate new token pair
+        String newAccessToken = jwtTokenProvider.generateAccessToken(userDetails, user.getId(), user.getPlan(), user.getRole(), token.familyId());
+        String newRefreshToken = jwtTokenProvider.generateRefreshToken(userDetails, user.getId(), token.familyId(), rotation.newTokenId());
 
-        log.info("Token refresh successfully for user: {}", email);
+        log.info("Token refresh successfully for user: {}", user.getEmail());
 
         // Build response
         return TokenRefreshResponse.builder()
                 .accessToken(newAccessToken)
+                .refreshToken(newRefreshToken)
                 .tokenType("Bearer")
                 .expiresIn(jwtTokenProvider.getAccessTokenExpirationSeconds())
                 .issuedAt(LocalDateTime.now())
                 .build();
     }
+
+    /**
+     * Log out the current session: revoke its token family on every node
+     */
+    public void logout(UUID userId, UUID familyId) {
+        if (familyId == null) {
+            log.warn("Logout with a pre-rotation token, nothing to revoke: user={}", userId);
+            return;
+        }
+        refreshTokenService.revokeFamily(familyId, userId);
+        log.info("User logged out: id={}, family={}", userId, familyId);
+    }
+
+    /**
+     * Result of the registration transaction
+     */
+    private record Registration(User user, UUID refreshTokenId) {
+    }
+
 }
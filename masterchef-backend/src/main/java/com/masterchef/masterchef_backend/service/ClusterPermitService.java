@@ -0,0 +1,271 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masterchef.masterchef_backend.config.ClusterPermitProperties;
+import com.masterchef.masterchef_backend.config.NodeIdentity;
+import com.masterchef.masterchef_backend.repository.LlmPermitRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cluster-wide LLM concurrency budget backed by the llm_permits lease table
+ *
+ * Every node draws permits from one global pool so scaling out the API tier
+ * does not multiply load on the shared Ollama host.
+ *
+ * Design:
+ * Slots are leased in batches with SELECT ... FOR UPDATE SKIP LOCKED (no blocking between nodes)
+ * Leased slots are cached locally behind a Semaphore, so the hot path is usually DB-free
+ * A heartbeat renews leases; slots lost to expiry are removed from the local pool
+ * Surplus cached slots are handed back after a period without demand
+ * A crashed node's leases expire after lease-ttl and become claimable by others
+ */
+@Slf4j
+@Service
+public class ClusterPermitService {
+
+    private final LlmPermitRepository permitRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterPermitProperties properties;
+    private final String nodeId;
+
+    private final Set<Integer> leasedSlots = ConcurrentHashMap.newKeySet();
+    private final AdjustableSemaphore available = new AdjustableSemaphore();
+    private final Object leaseLock = new Object();
+    private volatile long lastDemandNanos = System.nanoTime();
+
+    private final Counter acquireTimeoutCounter;
+    private final Counter leaseLostCounter;
+
+    public ClusterPermitService(
+            LlmPermitRepository permitRepository,
+            TransactionTemplate transactionTemplate,
+            ClusterPermitProperties properties,
+            NodeIdentity nodeIdentity,
+            MeterRegistry meterRegistry) {
+        this.permitRepository = permitRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.nodeId = nodeIdentity.getNodeId();
+
+        this.acquireTimeoutCounter = Counter.builder("llm.permits.acquire.timeouts")
+                .description("LLM calls rejected because no cluster permit became available")
+                .register(meterRegistry);
+
+        this.leaseLostCounter = Counter.builder("llm.permits.leases.lost")
+                .description("Permit leases lost to expiry before renewal")
+                .register(meterRegistry);
+
+        Gauge.builder("llm.permits.leased", leasedSlots, Set::size)
+                .description("Cluster permits currently leased by this node")
+                .register(meterRegistry);
+
+        Gauge.builder("llm.permits.available", available, Semaphore::availablePermits)
+                .description("Leased permits not currently in use on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Seed the slot table to match the configured budget
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeSlots() {
+        if (!properties.isEnabled()) {
+            log.info("Cluster LLM permits disabled");
+            return;
+        }
+
+        int budget = properties.getGlobalBudget();
+        transactionTemplate.executeWithoutResult(status -> {
+            permitRepository.seedSlots(budget);
+            permitRepository.trimSlots(budget);
+        });
+
+        log.info("Cluster LLM permits ready: node={}, globalBudget={}", nodeId, budget);
+    }
+
+    /**
+     * Take one permit, leasing more from the database if the local cache is empty
+     *
+     * @return true if a permit was acquired (caller must call release)
+     */
+    public boolean acquire() {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+
+        lastDemandNanos = System.nanoTime();
+
+        if (available.tryAcquire()) {
+            return true;
+        }
+
+        long deadline = System.nanoTime() + properties.getAcquireTimeout().toNanos();
+        try {
+            do {
+                leaseMore();
+
+                // Wait briefly for a local release before going back to the database
+                if (available.tryAcquire(250, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            } while (System.nanoTime() < deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        acquireTimeoutCounter.increment();
+        log.warn("No cluster LLM permit available within {}", properties.getAcquireTimeout());
+        return false;
+    }
+
+    /**
+     * Return a permit to the local cache
+     */
+    public void release() {
+        if (properties.isEnabled()) {
+            available.release();
+        }
+    }
+
+    /**
+     * Lease another batch of slots (one DB round trip, serialized per node)
+     */
+    private void leaseMore() {
+        synchronized (leaseLock) {
+            if (available.availablePermits() > 0) {
+                return;
+            }
+
+            try {
+                List<Integer> claimed = transactionTemplate.execute(status -> {
+                    List<Integer> slots = permitRepository.lockFreeSlots(properties.getBatchSize());
+                    if (!slots.isEmpty()) {
+                        permitRepository.assignSlots(slots, nodeId, ttlSeconds());
+                    }
+                    return slots;
+                });
+
+                if (claimed != null && !claimed.isEmpty()) {
+                    leasedSlots.addAll(claimed);
+                    available.release(claimed.size());
+                    log.debug("Leased cluster permits: slots={}, held={}", claimed, leasedSlots.size());
+                }
+            } catch (Exception e) {
+                log.error("Failed to lease cluster permits: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Renew held leases, drop lost ones and return idle surplus
+     */
+    @Scheduled(fixedDelayString = "${llm.cluster-permits.heartbeat-ms:10000}")
+    public void heartbeat() {
+        if (!properties.isEnabled() || leasedSlots.isEmpty()) {
+            return;
+        }
+
+        synchronized (leaseLock) {
+            try {
+                Set<Integer> held = new HashSet<>(leasedSlots);
+                List<Integer> stillHeld = transactionTemplate.execute(status -> {
+                    permitRepository.renewLeases(held, nodeId, ttlSeconds());
+                    return permitRepository.findHeldSlots(held, nodeId);
+                });
+
+                if (stillHeld != null && stillHeld.size() < held.size()) {
+                    held.removeAll(stillHeld);
+                    leasedSlots.removeAll(held);
+                    // May go negative while lost permits are still in use; releases bring it back
+                    available.reducePermits(held.size());
+                    leaseLostCounter.increment(held.size());
+                    log.warn("Lost cluster permit leases: slots={}", held);
+                }
+
+                releaseIdleSurplus();
+            } catch (Exception e) {
+                log.error("Cluster permit heartbeat failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void releaseIdleSurplus() {
+        long idleNanos = System.nanoTime() - lastDemandNanos;
+        if (idleNanos < properties.getIdleRelease().toNanos()) {
+            return;
+        }
+
+        int surplus = available.availablePermits() - properties.getMinCached();
+        if (surplus <= 0 || !available.tryAcquire(surplus)) {
+            return;
+        }
+
+        List<Integer> toRelease = new ArrayList<>(surplus);
+        Iterator<Integer> it = leasedSlots.iterator();
+        while (it.hasNext() && toRelease.size() < surplus) {
+            toRelease.add(it.next());
+        }
+
+        transactionTemplate.executeWithoutResult(status -> permitRepository.releaseSlots(toRelease, nodeId));
+        leasedSlots.removeAll(toRelease);
+        log.debug("Returned idle cluster permits: slots={}", toRelease);
+    }
+
+    /**
+     * Hand every lease back on shutdown instead of waiting for expiry
+     */
+    @PreDestroy
+    public void releaseAll() {
+        if (!properties.isEnabled() || leasedSlots.isEmpty()) {
+            return;
+        }
+
+        try {
+            Set<Integer> held = new HashSet<>(leasedSlots);
+            transactionTemplate.executeWithoutResult(status -> permitRepository.releaseSlots(held, nodeId));
+            leasedSlots.clear();
+            log.info("Released {} cluster permits on shutdown", held.size());
+        } catch (Exception e) {
+            log.warn("Failed to release cluster permits on shutdown: {}", e.getMessage());
+        }
+    }
+
+    private long ttlSeconds() {
+        return Math.max(1, properties.getLeaseTtl().toSeconds());
+    }
+
+    /**
+     * Semaphore whose size can shrink when leases are lost
+     */
+    private static final class AdjustableSemaphore extends Semaphore {
+
+        AdjustableSemaphore() {
+            super(0);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Checks generated recipe ingredients against the requested dietary preferences
+ *
+ * Keyword based: an ingredient violates a preference when its name mentions a forbidden word,
+ * unless it is explicitly a substitute ("vegan cheese", "gluten-free pasta", "oat milk")
+ * Unknown preferences are not checked
+ */
+@Component
+public class DietaryConstraintChecker {
+
+    private static final Set<String> MEAT_AND_FISH = Set.of(
+            "chicken", "beef", "pork", "lamb", "bacon", "ham", "sausage", "turkey", "duck", "veal",
+            "prosciutto", "salami", "pepperoni", "fish", "salmon", "tuna", "cod", "shrimp", "prawn",
+            "anchovy", "anchovies", "crab", "lobster", "gelatin");
+
+    private static final Set<String> DAIRY = Set.of(
+            "milk", "cheese", "butter", "cream", "yogurt", "yoghurt", "parmesan", "mozzarella", "ghee", "whey");
+
+    private static final Set<String> ANIMAL_PRODUCTS = Set.of("egg", "honey", "mayonnaise");
+
+    private static final Set<String> GLUTEN = Set.of(
+            "wheat", "flour", "bread", "pasta", "spaghetti", "noodle", "couscous", "barley", "rye", "breadcrumb", "soy sauce");
+
+    private static final Set<String> NUTS = Set.of(
+            "almond", "walnut", "pecan", "cashew", "pistachio", "hazelnut", "peanut", "macadamia");
+
+    private static final Map<String, List<Set<String>>> FORBIDDEN = Map.of(
+            "vegetarian", List.of(MEAT_AND_FISH),
+            "vegan", List.of(MEAT_AND_FISH, DAIRY, ANIMAL_PRODUCTS),
+            "pescatarian", List.of(Set.of("chicken", "beef", "pork", "lamb", "bacon", "ham", "sausage", "turkey", "duck", "veal")),
+            "dairy-free", List.of(DAIRY),
+            "gluten-free", List.of(GLUTEN),
+            "nut-free", List.of(NUTS));
+
+    private static final List<String> SUBSTITUTE_MARKERS = List.of(
+            "vegan", "plant", "vegetarian", "-free", "substitute", "alternative",
+            "coconut milk", "oat milk", "soy milk", "almond milk", "rice flour", "almond flour", "tamari");
+
+    /**
+     * Violations as "preference: ingredient"; empty when the recipe fits every known preference
+     */
+    public List<String> violations(List<String> dietaryPreferences, JsonNode recipe) {
+        List<String> violations = new ArrayList<>();
+        if (dietaryPreferences == null || dietaryPreferences.isEmpty() || !recipe.path("ingredients").isArray()) {
+            return violations;
+        }
+
+        for (String preference : dietaryPreferences) {
+            String key = normalize(preference);
+            List<Set<String>> forbidden = FORBIDDEN.get(key);
+            if (forbidden == null) {
+                continue;
+            }
+
+            for (JsonNode ingredient : recipe.path("ingredients")) {
+                String name = ingredient.isTextual()
+                        ? ingredient.asText()
+                        : ingredient.path("name").asText("");
+                String normalized = name.toLowerCase(Locale.ROOT);
+
+                // Nut-based substitutes (almond milk) still contain nuts
+                if (!"nut-free".equals(key) && isSubstitute(normalized)) {
+                    continue;
+                }
+                List<String> tokens = List.of(normalized.split("[^a-z]+"));
+                for (Set<String> words : forbidden) {
+                    if (words.stream().anyMatch(word -> mentions(normalized, tokens, word))) {
+                        violations.add(preference + ": " + name);
+                        break;
+                    }
+                }
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Whole-word match (plural forms included), so "champignon" does not count as "ham"
+     */
+    private static boolean mentions(String name, List<String> tokens, String word) {
+        if (word.indexOf(' ') >= 0) {
+            return name.contains(word);
+        }
+        return tokens.stream().anyMatch(token -> token.equals(word) || token.equals(word + "s") || token.equals(word + "es"));
+    }
+
+    private static boolean isSubstitute(String ingredient) {
+        return SUBSTITUTE_MARKERS.stream().anyMatch(ingredient::contains);
+    }
+
+    private static String normalize(String preference) {
+        return preference.trim().toLowerCase(Locale.ROOT).replace(' ', '-').replace('_', '-');
+    }
+
+}
@@ -0,0 +1,441 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.masterchef.masterchef_backend.config.GenerationArchiveProperties;
+import com.masterchef.masterchef_backend.config.NodeIdentity;
+import com.masterchef.masterchef_backend.exception.ResourceNotFoundException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Monthly partition maintenance and S3 archival for recipe_generations
+ *
+ * Lifecycle of a month:
+ * Created monthsAhead in advance (ensure_recipe_generations_partition)
+ * Once older than the retention window, a node claims it in recipe_generation_archives,
+ * streams it out in id order as gzip NDJSON segments (one temp file, one S3 object at a time),
+ * verifies the row count, then detaches and drops the partition in one short transaction
+ * A crashed archival keeps its claim until claim-ttl passes; the retry overwrites the same keys
+ *
+ * The same transaction stores a per-user segment index (recipe_generation_archive_users): which segments hold
+ * a user's rows and how many, so readArchived() downloads only those segments and pages through them by offset.
+ * Rollups (user_generation_stats, generation_rollups) keep their totals after a month is dropped.
+ */
+@Slf4j
+@Service
+public class GenerationArchiveService {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("recipe_generations_y(\\d{4})m(\\d{2})");
+
+    private static final String LIST_PARTITIONS_SQL = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = 'recipe_generations' ORDER BY c.relname";
+
+    private static final String CLAIM_SQL = "INSERT INTO recipe_generation_archives "
+            + "(partition_name, month_start, status, s3_prefix, claimed_by, claimed_at) "
+            + "VALUES (?, ?, 'ARCHIVING', ?, ?, LOCALTIMESTAMP) "
+            + "ON CONFLICT (partition_name) DO UPDATE SET claimed_by = EXCLUDED.claimed_by, claimed_at = LOCALTIMESTAMP "
+            + "WHERE recipe_generation_archives.status = 'ARCHIVING' "
+            + "AND (recipe_generation_archives.claimed_at IS NULL "
+            + "OR recipe_generation_archives.claimed_at < LOCALTIMESTAMP - make_interval(secs => ?))";
+
+    private static final String COMPLETE_SQL = "UPDATE recipe_generation_archives SET status = 'DROPPED', "
+            + "segment_count = ?, row_count = ?, size_bytes = ?, user_indexed = TRUE, archived_at = LOCALTIMESTAMP "
+            + "WHERE partition_name = ? AND claimed_by = ?";
+
+    private static final String INSERT_USER_INDEX_SQL = "INSERT INTO recipe_generation_archive_users "
+            + "(user_id, partition_name, segments, segment_rows) VALUES (?, ?, ?, ?)";
+
+    private static final String READ_USER_INDEX_SQL = "SELECT a.s3_prefix, a.user_indexed, u.segments, u.segment_rows "
+            + "FROM recipe_generation_archives a "
+            + "LEFT JOIN recipe_generation_archive_users u ON u.partition_name = a.partition_name AND u.user_id = ? "
+            + "WHERE a.month_start = ? AND a.status = 'DROPPED'";
+
+    private static final String RELEASE_SQL = "UPDATE recipe_generation_archives SET claimed_at = NULL "
+            + "WHERE partition_name = ? AND status = 'ARCHIVING' AND claimed_by = ?";
+
+    private static final String COLUMNS = "id, user_id, ingredients, dietary_preferences, prompt, template_id, "
+            + "prompt_params, raw_response, cache_key, model_used, tokens_used, cost_cents, cached, latency_ms, "
+            + "status, error_message, created_at, response_hash";
+
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StorageService storageService;
+    private final GenerationArchiveProperties properties;
+    private final String nodeId;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final Counter archivedRowsCounter;
+    private final Counter droppedPartitionsCounter;
+
+    public GenerationArchiveService(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            StorageService storageService,
+            GenerationArchiveProperties properties,
+            NodeIdentity nodeIdentity,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.storageService = storageService;
+        this.properties = properties;
+        this.nodeId = nodeIdentity.getNodeId();
+
+        this.archivedRowsCounter = Counter.builder("generation.archive.rows")
+                .description("recipe_generations rows written to S3 archive segments")
+                .register(meterRegistry);
+
+        this.droppedPartitionsCounter = Counter.builder("generation.archive.partitions.dropped")
+                .description("Monthly recipe_generations partitions archived and dropped")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Keep future partitions created and archive the expired ones
+     */
+    @Scheduled(initialDelayString = "${generation-archive.initial-delay-ms:60000}",
+            fixedDelayString = "${generation-archive.interval-ms:3600000}")
+    public void maintain() {
+        try {
+            ensurePartitions();
+        } catch (Exception e) {
+            log.error("Failed to create recipe_generations partitions: {}", e.getMessage(), e);
+        }
+
+        if (properties.isEnabled()) {
+            archiveExpired();
+        }
+    }
+
+    /**
+     * Create this month's partition and the next monthsAhead (idempotent)
+     */
+    public void ensurePartitions() {
+        YearMonth month = YearMonth.now();
+        for (int i = 0; i <= properties.getMonthsAhead(); i++) {
+            jdbcTemplate.queryForObject("SELECT ensure_recipe_generations_partition(?)", String.class,
+                    Date.valueOf(month.plusMonths(i).atDay(1)));
+        }
+    }
+
+    /**
+     * Archive and drop every attached partition older than the retention window
+     * @return number of partitions dropped by this node
+     */
+    public int archiveExpired() {
+        YearMonth oldestKept = YearMonth.now().minusMonths(Math.max(1, properties.getRetentionMonths()) - 1L);
+
+        int dropped = 0;
+        for (String partition : jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class)) {
+            YearMonth month = monthOf(partition);
+            if (month == null || !month.isBefore(oldestKept)) {
+                continue;
+            }
+            try {
+                if (archivePartition(partition, month)) {
+                    dropped++;
+                }
+            } catch (Exception e) {
+                log.error("Archival of {} failed, will retry after the claim expires: {}", partition, e.getMessage(), e);
+            }
+        }
+        return dropped;
+    }
+
+    private boolean archivePartition(String partition, YearMonth month) throws IOException {
+        String prefix = properties.getS3Prefix() + "/" + month;
+        int claimed = jdbcTemplate.update(CLAIM_SQL, partition, Date.valueOf(month.atDay(1)), prefix, nodeId,
+                properties.getClaimTtl().toSeconds());
+        if (claimed == 0) {
+            log.debug("Partition {} is being archived by another node", partition);
+            return false;
+        }
+
+        log.info("Archiving partition {} to s3 prefix {}", partition, prefix);
+
+        int segments = 0;
+        long rows = 0;
+        long bytes = 0;
+        UUID after = MIN_UUID;
+        Map<UUID, UserSegments> userIndex = new HashMap<>();
+
+        try {
+            while (true) {
+                Segment segment = writeSegment(partition, after, segments, userIndex);
+                try {
+                    if (segment.rows() == 0) {
+                        break;
+                    }
+                    storageService.uploadFile(segmentKey(prefix, segments), segment.file(), "application/x-ndjson", "gzip");
+                    bytes += Files.size(segment.file());
+                } finally {
+                    Files.deleteIfExists(segment.file());
+                }
+
+                segments++;
+                rows += segment.rows();
+                after = segment.lastId();
+                archivedRowsCounter.increment(segment.rows());
+            }
+
+            long archivedRows = rows;
+            int segmentCount = segments;
+            long sizeBytes = bytes;
+            transactionTemplate.executeWithoutResult(status -> {
+                // The month is past retention, so no writer can add rows after the export
+                Long live = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partition, Long.class);
+                if (live == null || live != archivedRows) {
+                    throw new IllegalStateException("Row count changed during archival: exported "
+                            + archivedRows + ", partition has " + live);
+                }
+                jdbcTemplate.execute("ALTER TABLE recipe_generations DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                writeUserIndex(partition, userIndex);
+                jdbcTemplate.update(COMPLETE_SQL, segmentCount, archivedRows, sizeBytes, partition, nodeId);
+            });
+        } catch (IOException | RuntimeException e) {
+            jdbcTemplate.update(RELEASE_SQL, partition, nodeId);
+            throw e;
+        }
+
+        droppedPartitionsCounter.increment();
+        log.info("Partition {} archived and dropped: rows={}, segments={}, compressedBytes={}",
+                partition, rows, segments, bytes);
+        return true;
+    }
+
+    private record Segment(Path file, long rows, UUID lastId) {
+    }
+
+    /**
+     * Segments holding one user's rows (ascending) and the user's row count in each
+     */
+    private static final class UserSegments {
+
+        private final List<Integer> segments = new ArrayList<>();
+        private final List<Integer> rows = new ArrayList<>();
+
+        void add(int segment) {
+            int last = segments.size() - 1;
+            if (last >= 0 && segments.get(last) == segment) {
+                rows.set(last, rows.get(last) + 1);
+            } else {
+                segments.add(segment);
+                rows.add(1);
+            }
+        }
+    }
+
+    /**
+     * One archived page of a user's generations; total is the user's row count for the whole month
+     */
+    public record ArchivedPage(List<GenerationAuditRecord> records, long total) {
+    }
+
+    /**
+     * Stream the next segmentRows rows (id order, keyset) into a gzip NDJSON temp file,
+     * noting the segment number against each row's user
+     */
+    private Segment writeSegment(String partition, UUID after, int segmentNumber, Map<UUID, UserSegments> userIndex)
+            throws IOException {
+        Path file = Files.createTempFile("generations-archive-", ".ndjson.gz");
+        long[] rows = {0};
+        UUID[] lastId = {after};
+
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8))) {
+            jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + partition + " WHERE id > ? ORDER BY id LIMIT ?",
+                    (RowCallbackHandler) rs -> {
+                        GenerationAuditRecord record = toRecord(rs);
+                        try {
+                            writer.write(objectMapper.writeValueAsString(record));
+                            writer.newLine();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        rows[0]++;
+                        lastId[0] = record.id();
+                        if (record.userId() != null) {
+                            userIndex.computeIfAbsent(record.userId(), id -> new UserSegments()).add(segmentNumber);
+                        }
+                    },
+                    after, properties.getSegmentRows());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            if (e instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw e;
+        }
+
+        return new Segment(file, rows[0], lastId[0]);
+    }
+
+    /**
+     * Replace the partition's per-user segment index (a retried archival rewrites it)
+     */
+    private void writeUserIndex(String partition, Map<UUID, UserSegments> userIndex) {
+        jdbcTemplate.update("DELETE FROM recipe_generation_archive_users WHERE partition_name = ?", partition);
+
+        List<Map.Entry<UUID, UserSegments>> entries = new ArrayList<>(userIndex.entrySet());
+        jdbcTemplate.batchUpdate(INSERT_USER_INDEX_SQL, entries, 1000, (ps, entry) -> {
+            ps.setObject(1, entry.getKey());
+            ps.setString(2, partition);
+            ps.setArray(3, ps.getConnection().createArrayOf("integer", entry.getValue().segments.toArray()));
+            ps.setArray(4, ps.getConnection().createArrayOf("integer", entry.getValue().rows.toArray()));
+        });
+    }
+
+    /**
+     * Read a page of a user's generations of an archived month back from S3 (archive order)
+     *
+     * Only the segments holding the user's rows are downloaded; whole segments before the offset are skipped
+     * without being read, and a segment is abandoned as soon as the user's rows in it have been seen
+     */
+    public ArchivedPage readArchived(UUID userId, YearMonth month, long offset, int limit) {
+        List<Map<String, Object>> archives = jdbcTemplate.queryForList(READ_USER_INDEX_SQL,
+                userId, Date.valueOf(month.atDay(1)));
+        if (archives.isEmpty()) {
+            throw new ResourceNotFoundException("Archived generation history", month.toString());
+        }
+
+        Map<String, Object> archive = archives.get(0);
+        if (!Boolean.TRUE.equals(archive.get("user_indexed"))) {
+            log.warn("Archived month {} has no per-user index and cannot be read per user", month);
+            throw new ResourceNotFoundException("Archived generation history", month.toString());
+        }
+
+        int[] segments = toIntArray(archive.get("segments"));
+        int[] segmentRows = toIntArray(archive.get("segment_rows"));
+        long total = Arrays.stream(segmentRows).asLongStream().sum();
+        String prefix = (String) archive.get("s3_prefix");
+
+        List<GenerationAuditRecord> matches = new ArrayList<>();
+        long skip = offset;
+        for (int i = 0; i < segments.length && matches.size() < limit; i++) {
+            if (skip >= segmentRows[i]) {
+                skip -= segmentRows[i];
+                continue;
+            }
+
+            String key = segmentKey(prefix, segments[i]);
+            try (InputStream in = storageService.openObject(key);
+                 BufferedReader reader = new BufferedReader(
+                         new InputStreamReader(new GZIPInputStream(in), StandardCharsets.UTF_8))) {
+                int seen = 0;
+                String line;
+                while (seen < segmentRows[i] && matches.size() < limit && (line = reader.readLine()) != null) {
+                    GenerationAuditRecord record = objectMapper.readValue(line, GenerationAuditRecord.class);
+                    if (!userId.equals(record.userId())) {
+                        continue;
+                    }
+                    seen++;
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        matches.add(record);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read archive segment " + key, e);
+            }
+        }
+        return new ArchivedPage(matches, total);
+    }
+
+    private static int[] toIntArray(Object value) {
+        if (value == null) {
+            return new int[0];
+        }
+        try {
+            Object array = value instanceof Array sqlArray ? sqlArray.getArray() : value;
+            Integer[] boxed = (Integer[]) array;
+            return Arrays.stream(boxed).mapToInt(Integer::intValue).toArray();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to read archive segment index", e);
+        }
+    }
+
+    private static String segmentKey(String prefix, int segment) {
+        return String.format("%s/segment-%05d.ndjson.gz", prefix, segment);
+    }
+
+    private static YearMonth monthOf(String partition) {
+        Matcher matcher = PARTITION_NAME.matcher(partition);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+    private static GenerationAuditRecord toRecord(ResultSet rs) throws SQLException {
+        Integer tokensUsed = rs.getObject("tokens_used", Integer.class);
+        Integer costCents = rs.getObject("cost_cents", Integer.class);
+        Long latencyMs = rs.getObject("latency_ms", Long.class);
+
+        return new GenerationAuditRecord(
+                rs.getObject("id", UUID.class),
+                rs.getObject("user_id", UUID.class),
+                toList(rs.getArray("ingredients")),
+                toList(rs.getArray("dietary_preferences")),
+                rs.getString("prompt"),
+                rs.getString("template_id"),
+                rs.getString("prompt_params"),
+                rs.getString("raw_response"),
+                rs.getString("cache_key"),
+                rs.getString("response_hash"),
+                rs.getString("model_used"),
+                tokensUsed,
+                costCents,
+                rs.getBoolean("cached"),
+                latencyMs,
+                rs.getString("status"),
+                rs.getString("error_message"),
+                rs.getTimestamp("created_at").toLocalDateTime());
+    }
+
+    private static List<String> toList(Array array) throws SQLException {
+        return array == null ? List.of() : Arrays.asList((String[]) array.getArray());
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable audit entry for one LLM call, buffered by GenerationAuditWriter
+ * and written to recipe_generations in batches
+ *
+ * New records leave prompt null and reference templateId + promptParams (slot values as JSON);
+ * cache hits leave rawResponse null and reference the llm_cache entry by cacheKey, with responseHash
+ * (SHA-256 of the response they were served) to tell whether that entry was regenerated since
+ */
+public record GenerationAuditRecord(
+        UUID id,
+        UUID userId,
+        List<String> ingredients,
+        List<String> dietaryPreferences,
+        String prompt,
+        String templateId,
+        String promptParams,
+        String rawResponse,
+        String cacheKey,
+        String responseHash,
+        String modelUsed,
+        Integer tokensUsed,
+        Integer costCents,
+        boolean cached,
+        Long latencyMs,
+        String status,
+        String errorMessage,
+        LocalDateTime createdAt) {
+}
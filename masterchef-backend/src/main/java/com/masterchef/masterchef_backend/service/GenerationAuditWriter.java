@@ -0,0 +1,467 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.masterchef.masterchef_backend.config.AuditWriterProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind persistence for the recipe_generations audit trail
+ *
+ * ASYNC mode (default):
+ * record() is a single offer into a bounded ring buffer (ArrayBlockingQueue), no I/O on the request thread
+ * A background writer flushes when batch-size records are buffered or flush-interval elapses
+ * Batches go out as one JDBC batch insert inside one short transaction,
+ * together with the per-user and time-bucketed rollup increments
+ * (user_generation_stats, generation_rollups)
+ * Buffer full or database down: records spill to NDJSON files (or are dropped if spilling is off)
+ * Spill files are replayed once the writer is idle and the database accepts writes again
+ * A replay batch the database rejects while it is otherwise reachable is split down to the offending records,
+ * which move to spill-dir/dead-letter (e.g. a created_at whose monthly partition was archived and dropped)
+ * Shutdown drains the buffer before the datasource closes
+ *
+ * SYNC mode inserts on the caller's thread, for deployments that need the audit row
+ * to be durable before the response is sent. Records it could not insert are spilled too,
+ * and replayed by a scheduled pass since there is no writer thread.
+ */
+@Slf4j
+@Service
+public class GenerationAuditWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO recipe_generations "
+            + "(id, user_id, ingredients, dietary_preferences, prompt, template_id, prompt_params, raw_response, "
+            + "cache_key, model_used, tokens_used, cost_cents, cached, latency_ms, status, error_message, created_at, "
+            + "response_hash) "
+            + "VALUES (?, ?, ?, ?, ?, ?, CAST(? AS JSONB), ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditWriterProperties properties;
+    private final UserStatsService userStatsService;
+    private final GenerationRollupService rollupService;
+    private final ArrayBlockingQueue<GenerationAuditRecord> buffer;
+    private final ObjectMapper spillMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final Object spillLock = new Object();
+    private final AtomicLong spillSequence = new AtomicLong();
+
+    private final Counter writtenCounter;
+    private final Counter spilledCounter;
+    private final Counter droppedCounter;
+    private final Counter deadLetteredCounter;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public GenerationAuditWriter(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            AuditWriterProperties properties,
+            UserStatsService userStatsService,
+            GenerationRollupService rollupService,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.userStatsService = userStatsService;
+        this.rollupService = rollupService;
+        this.buffer = new ArrayBlockingQueue<>(properties.getBufferCapacity());
+
+        this.writtenCounter = Counter.builder("audit.records.written")
+                .description("Generation audit records persisted to PostgreSQL")
+                .register(meterRegistry);
+
+        this.spilledCounter = Counter.builder("audit.records.spilled")
+                .description("Generation audit records spilled to disk under backpressure")
+                .register(meterRegistry);
+
+        this.droppedCounter = Counter.builder("audit.records.dropped")
+                .description("Generation audit records lost (buffer full or write failed, spilling disabled)")
+                .register(meterRegistry);
+
+        this.deadLetteredCounter = Counter.builder("audit.records.dead_lettered")
+                .description("Spilled audit records the database rejects permanently, moved to the dead-letter directory")
+                .register(meterRegistry);
+
+        this.flushTimer = Timer.builder("audit.flush.duration")
+                .description("Time to write one audit batch")
+                .register(meterRegistry);
+
+        Gauge.builder("audit.buffer.size", buffer, ArrayBlockingQueue::size)
+                .description("Audit records waiting in the write-behind buffer")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.getMode() != AuditWriterProperties.Mode.ASYNC) {
+            log.info("Generation audit writer in SYNC mode");
+            return;
+        }
+
+        running = true;
+        writerThread = new Thread(this::runWriter, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        log.info("Generation audit writer started: buffer={}, batchSize={}, flushInterval={}, spillToDisk={}",
+                properties.getBufferCapacity(), properties.getBatchSize(),
+                properties.getFlushInterval(), properties.isSpillToDisk());
+    }
+
+    /**
+     * Record one audit entry
+     * ASYNC: non-blocking enqueue; SYNC: immediate insert
+     */
+    public void record(GenerationAuditRecord record) {
+        if (properties.getMode() == AuditWriterProperties.Mode.SYNC) {
+            List<GenerationAuditRecord> single = List.of(record);
+            if (!tryWrite(single)) {
+                spillOrDrop(single);
+            }
+            return;
+        }
+
+        if (!buffer.offer(record)) {
+            spillOrDrop(List.of(record));
+        }
+    }
+
+    /**
+     * SYNC mode: replay spill files left by failed inserts (in ASYNC mode the writer thread does this when idle)
+     */
+    @Scheduled(fixedDelayString = "${audit.sync-replay-interval-ms:30000}")
+    public void replaySyncSpills() {
+        if (properties.getMode() != AuditWriterProperties.Mode.SYNC) {
+            return;
+        }
+        try {
+            replaySpillFiles();
+        } catch (Exception e) {
+            log.error("Audit spill replay failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Background loop: size- or time-triggered batch flushes
+     */
+    private void runWriter() {
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        int batchSize = properties.getBatchSize();
+        List<GenerationAuditRecord> batch = new ArrayList<>(batchSize);
+
+        while (running || !buffer.isEmpty()) {
+            try {
+                GenerationAuditRecord first = running
+                        ? buffer.poll(flushIntervalNanos, TimeUnit.NANOSECONDS)
+                        : buffer.poll();
+
+                if (first == null) {
+                    replaySpillFiles();
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    GenerationAuditRecord next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                if (!tryWrite(batch)) {
+                    spillOrDrop(batch);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown requested: loop condition drains what is left without waiting
+                running = false;
+            } catch (Exception e) {
+                log.error("Audit writer loop error: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+
+        log.info("Generation audit writer stopped");
+    }
+
+    /**
+     * Write a batch in one transaction; returns false if the database rejected it
+     */
+    private boolean tryWrite(List<GenerationAuditRecord> batch) {
+        try {
+            flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> writeBatch(batch)));
+            writtenCounter.increment(batch.size());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to write {} audit records: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeBatch(List<GenerationAuditRecord> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::bind);
+        // Rollups commit or roll back together with the rows they summarize
+        userStatsService.applyGenerations(batch);
+        rollupService.applyGenerations(batch);
+    }
+
+    private void bind(PreparedStatement ps, GenerationAuditRecord r) throws SQLException {
+        ps.setObject(1, r.id());
+        ps.setObject(2, r.userId());
+        ps.setArray(3, ps.getConnection().createArrayOf("text", toArray(r.ingredients())));
+        ps.setArray(4, ps.getConnection().createArrayOf("text", toArray(r.dietaryPreferences())));
+        ps.setString(5, r.prompt());
+        ps.setString(6, r.templateId());
+        ps.setString(7, r.promptParams());
+        ps.setString(8, r.rawResponse());
+        ps.setString(9, r.cacheKey());
+        ps.setString(10, r.modelUsed() != null ? r.modelUsed() : "unknown");
+        setNullableInt(ps, 11, r.tokensUsed());
+        ps.setInt(12, r.costCents() != null ? r.costCents() : 0);
+        ps.setBoolean(13, r.cached());
+        if (r.latencyMs() != null) {
+            ps.setLong(14, r.latencyMs());
+        } else {
+            ps.setNull(14, Types.BIGINT);
+        }
+        ps.setString(15, r.status() != null ? r.status() : "UNKNOWN");
+        ps.setString(16, r.errorMessage());
+        ps.setTimestamp(17, Timestamp.valueOf(r.createdAt()));
+        ps.setString(18, r.responseHash());
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+
+    private static String[] toArray(List<String> values) {
+        return values != null ? values.toArray(new String[0]) : new String[0];
+    }
+
+    /**
+     * Backpressure / outage path: append to a spill file, or count the loss
+     */
+    private void spillOrDrop(List<GenerationAuditRecord> records) {
+        if (!properties.isSpillToDisk()) {
+            droppedCounter.increment(records.size());
+            log.warn("Dropped {} audit records (spill-to-disk disabled)", records.size());
+            return;
+        }
+
+        synchronized (spillLock) {
+            try {
+                Path dir = Files.createDirectories(Paths.get(properties.getSpillDir()));
+                Path file = dir.resolve("audit-" + System.currentTimeMillis() + "-"
+                        + spillSequence.incrementAndGet() + ".ndjson");
+
+                writeRecords(file, records, StandardOpenOption.CREATE_NEW);
+
+                spilledCounter.increment(records.size());
+                log.warn("Spilled {} audit records to {}", records.size(), file);
+            } catch (IOException e) {
+                droppedCounter.increment(records.size());
+                log.error("Failed to spill {} audit records: {}", records.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Replay spill files (oldest first) while the writer has nothing else to do
+     * Stops at the first file the database cannot take because it is unreachable; rejected records never block it
+     */
+    private void replaySpillFiles() {
+        if (!properties.isSpillToDisk() || !buffer.isEmpty()) {
+            return;
+        }
+
+        Path dir = Paths.get(properties.getSpillDir());
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+
+        List<Path> files = new ArrayList<>();
+        synchronized (spillLock) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "audit-*.ndjson")) {
+                stream.forEach(files::add);
+            } catch (IOException e) {
+                log.warn("Cannot list audit spill directory: {}", e.getMessage());
+                return;
+            }
+        }
+        files.sort(null);
+
+        for (Path file : files) {
+            List<GenerationAuditRecord> records = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        records.add(spillMapper.readValue(line, GenerationAuditRecord.class));
+                    }
+                }
+            } catch (IOException e) {
+                log.error("Unreadable audit spill file {}, moving it to the dead-letter directory: {}",
+                        file, e.getMessage());
+                moveToDeadLetter(file);
+                continue;
+            }
+
+            List<GenerationAuditRecord> deadLetters = new ArrayList<>();
+            List<GenerationAuditRecord> unwritten = new ArrayList<>();
+            replayBatch(records, deadLetters, unwritten);
+
+            try {
+                if (!deadLetters.isEmpty()) {
+                    writeDeadLetters(file, deadLetters);
+                }
+                if (!unwritten.isEmpty()) {
+                    // Database unavailable: keep only what is still unwritten and try again on the next idle cycle
+                    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+                    writeRecords(tmp, unwritten, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    return;
+                }
+                Files.deleteIfExists(file);
+                log.info("Replayed {} audit records from {} ({} dead-lettered)",
+                        records.size() - deadLetters.size(), file, deadLetters.size());
+            } catch (IOException e) {
+                log.error("Failed to update replayed spill file {}: {}", file, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Write a replayed batch, halving it on rejection until the rejected records are isolated
+     * Rejected single records go to deadLetters, unless the database is unreachable: then the rest of the batch
+     * goes to unwritten and false is returned
+     */
+    private boolean replayBatch(List<GenerationAuditRecord> batch, List<GenerationAuditRecord> deadLetters,
+            List<GenerationAuditRecord> unwritten) {
+        if (batch.isEmpty() || tryWrite(batch)) {
+            return true;
+        }
+        if (!databaseReachable()) {
+            unwritten.addAll(batch);
+            return false;
+        }
+        if (batch.size() == 1) {
+            deadLetters.addAll(batch);
+            return true;
+        }
+
+        int middle = batch.size() / 2;
+        if (!replayBatch(batch.subList(0, middle), deadLetters, unwritten)) {
+            unwritten.addAll(batch.subList(middle, batch.size()));
+            return false;
+        }
+        return replayBatch(batch.subList(middle, batch.size()), deadLetters, unwritten);
+    }
+
+    private boolean databaseReachable() {
+        try {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            return true;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+
+    private void writeDeadLetters(Path spillFile, List<GenerationAuditRecord> records) throws IOException {
+        Path dir = Files.createDirectories(spillFile.resolveSibling("dead-letter"));
+        Path file = dir.resolve(spillFile.getFileName());
+        writeRecords(file, records, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        deadLetteredCounter.increment(records.size());
+        log.error("Moved {} audit records the database rejects to {}", records.size(), file);
+    }
+
+    private void moveToDeadLetter(Path spillFile) {
+        try {
+            Path dir = Files.createDirectories(spillFile.resolveSibling("dead-letter"));
+            Files.move(spillFile, dir.resolve(spillFile.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Failed to move spill file {} to the dead-letter directory: {}", spillFile, e.getMessage());
+        }
+    }
+
+    private void writeRecords(Path file, List<GenerationAuditRecord> records, StandardOpenOption... options)
+            throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, options)) {
+            for (GenerationAuditRecord record : records) {
+                writer.write(spillMapper.writeValueAsString(record));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Flush everything still buffered before the datasource shuts down
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(10_000);
+
+        if (!buffer.isEmpty()) {
+            List<GenerationAuditRecord> remaining = new ArrayList<>();
+            buffer.drainTo(remaining);
+            spillOrDrop(remaining);
+        }
+    }
+
+}
@@ -0,0 +1,301 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.masterchef.masterchef_backend.config.GenerationJobProperties;
+import com.masterchef.masterchef_backend.dto.GenerationJobResponse;
+import com.masterchef.masterchef_backend.dto.RecipeRequest;
+import com.masterchef.masterchef_backend.exception.ResourceNotFoundException;
+import com.masterchef.masterchef_backend.models.GenerationJob;
+import com.masterchef.masterchef_backend.repository.GenerationJobRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Durable queue of asynchronous recipe generation jobs (generation_jobs table)
+ *
+ * Lifecycle:
+ * QUEUED -> RUNNING (claimed by a worker with FOR UPDATE SKIP LOCKED)
+ * RUNNING -> SUCCEEDED (recipe persisted) or back to QUEUED with exponential backoff
+ * RUNNING -> FAILED once max attempts are used up
+ * RUNNING with an expired lock (crashed worker) is reclaimed by any node
+ * Workers extend the locks of jobs they are still running (heartbeat); an attempt's outcome is only recorded
+ * while its worker still holds that attempt's lock, so a reclaimed job is never overwritten by the stale worker
+ * All timestamps come from the database clock (LOCALTIMESTAMP), never the JVM's
+ *
+ * Completion is pushed to SSE subscribers on this node immediately, and to
+ * subscribers whose job ran on another node by a periodic status sweep.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GenerationJobService {
+
+    private final GenerationJobRepository jobRepository;
+    private final GenerationJobProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<UUID, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Enqueue a generation job; returns immediately with the job id
+     */
+    @Transactional
+    public GenerationJobResponse enqueue(RecipeRequest request, UUID userId) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize recipe request", e);
+        }
+
+        GenerationJob job = GenerationJob.builder()
+                .userId(userId)
+                .request(payload)
+                .status(GenerationJob.QUEUED)
+                .maxAttempts(properties.getMaxAttempts())
+                .build();
+
+        job = jobRepository.save(job);
+        log.info("Generation job queued: id={}, user={}", job.getId(), userId);
+
+        return toResponse(job);
+    }
+
+    /**
+     * Get a job owned by the user
+     */
+    @Transactional(readOnly = true)
+    public GenerationJobResponse getJob(UUID jobId, UUID userId) {
+        return jobRepository.findByIdAndUserId(jobId, userId)
+                .map(this::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Generation job", jobId.toString()));
+    }
+
+    /**
+     * Claim up to limit due jobs for a worker node
+     */
+    @Transactional
+    public List<GenerationJob> claimJobs(int limit, String workerId) {
+        List<GenerationJob> jobs = jobRepository.lockClaimableJobs(limit);
+
+        List<UUID> claimable = new ArrayList<>();
+        for (GenerationJob job : jobs) {
+            if (job.getAttempts() >= job.getMaxAttempts()) {
+                // Abandoned on its last attempt by a crashed worker
+                markFailed(job, "Worker lost during final attempt");
+                continue;
+            }
+            claimable.add(job.getId());
+        }
+
+        if (claimable.isEmpty()) {
+            return List.of();
+        }
+
+        jobRepository.markRunning(claimable, workerId, properties.getLockTimeout().toSeconds());
+        List<GenerationJob> claimed = jobRepository.findAllById(claimable);
+
+        log.debug("Claimed {} generation jobs for worker {}", claimed.size(), workerId);
+        return claimed;
+    }
+
+    /**
+     * Extend the locks of jobs this worker is still running
+     */
+    @Transactional
+    public void extendLocks(Collection<UUID> jobIds, String workerId) {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+
+        int extended = jobRepository.extendLocks(jobIds, workerId, properties.getLockTimeout().toSeconds());
+        if (extended < jobIds.size()) {
+            log.warn("Worker {} lost the lock on {} of {} running generation jobs",
+                    workerId, jobIds.size() - extended, jobIds.size());
+        }
+    }
+
+    /**
+     * Record a successful run of the claimed attempt
+     */
+    @Transactional
+    public void completeJob(GenerationJob job, UUID recipeId) {
+        int updated = jobRepository.markSucceeded(job.getId(), job.getLockedBy(), job.getAttempts(), recipeId);
+        if (updated == 0) {
+            log.warn("Generation job attempt {} succeeded after losing its lock, result not recorded: id={}, recipeId={}",
+                    job.getAttempts(), job.getId(), recipeId);
+            return;
+        }
+
+        log.info("Generation job succeeded: id={}, recipeId={}, attempts={}", job.getId(), recipeId, job.getAttempts());
+        jobRepository.findById(job.getId()).ifPresent(this::publishAfterCommit);
+    }
+
+    /**
+     * Record a failed run of the claimed attempt; requeue with exponential backoff unless attempts are exhausted
+     */
+    @Transactional
+    public void failJob(GenerationJob job, String errorMessage) {
+        if (job.getAttempts() >= job.getMaxAttempts()) {
+            markFailed(job, errorMessage);
+            return;
+        }
+
+        long backoffMs = properties.getRetryBackoff().toMillis() << Math.min(job.getAttempts() - 1, 10);
+        int updated = jobRepository.markRetry(job.getId(), job.getLockedBy(), job.getAttempts(), errorMessage,
+                backoffMs / 1000.0);
+        if (updated == 0) {
+            log.warn("Generation job attempt {} failed after losing its lock: id={}, error={}",
+                    job.getAttempts(), job.getId(), errorMessage);
+            return;
+        }
+
+        log.warn("Generation job attempt {} failed, retrying in {}ms: id={}, error={}",
+                job.getAttempts(), backoffMs, job.getId(), errorMessage);
+    }
+
+    private void markFailed(GenerationJob job, String errorMessage) {
+        int updated = jobRepository.markFailed(job.getId(), job.getLockedBy(), job.getAttempts(), errorMessage);
+        if (updated == 0) {
+            log.warn("Generation job attempt {} failed after losing its lock: id={}, error={}",
+                    job.getAttempts(), job.getId(), errorMessage);
+            return;
+        }
+
+        log.error("Generation job failed permanently: id={}, attempts={}, error={}",
+                job.getId(), job.getAttempts(), errorMessage);
+        jobRepository.findById(job.getId()).ifPresent(this::publishAfterCommit);
+    }
+
+    /**
+     * Subscribe to completion events for a job (Server-Sent Events)
+     */
+    @Transactional(readOnly = true)
+    public SseEmitter subscribe(UUID jobId, UUID userId) {
+        GenerationJob job = jobRepository.findByIdAndUserId(jobId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Generation job", jobId.toString()));
+
+        SseEmitter emitter = new SseEmitter(properties.getSseTimeout().toMillis());
+
+        if (job.isTerminal()) {
+            send(emitter, toResponse(job));
+            return emitter;
+        }
+
+        List<SseEmitter> emitters = subscribers.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>());
+        emitters.add(emitter);
+        emitter.onCompletion(() -> unsubscribe(jobId, emitter));
+        emitter.onTimeout(() -> unsubscribe(jobId, emitter));
+        emitter.onError(e -> unsubscribe(jobId, emitter));
+
+        send(emitter, toResponse(job), false);
+        return emitter;
+    }
+
+    /**
+     * Push terminal states of jobs that completed on other nodes
+     */
+    @Scheduled(fixedDelayString = "${generation-jobs.sse-sweep-ms:2000}")
+    @Transactional(readOnly = true)
+    public void sweepSubscribedJobs() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        jobRepository.findAllById(subscribers.keySet()).stream()
+                .filter(GenerationJob::isTerminal)
+                .forEach(this::publish);
+    }
+
+    /**
+     * Notify subscribers only once the new status is visible to their follow-up reads
+     */
+    private void publishAfterCommit(GenerationJob job) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(job);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(job);
+            }
+        });
+    }
+
+    private void publish(GenerationJob job) {
+        List<SseEmitter> emitters = subscribers.remove(job.getId());
+        if (emitters == null) {
+            return;
+        }
+
+        GenerationJobResponse response = toResponse(job);
+        emitters.forEach(emitter -> send(emitter, response));
+    }
+
+    private void unsubscribe(UUID jobId, SseEmitter emitter) {
+        subscribers.computeIfPresent(jobId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private void send(SseEmitter emitter, GenerationJobResponse response) {
+        send(emitter, response, true);
+    }
+
+    private void send(SseEmitter emitter, GenerationJobResponse response, boolean complete) {
+        try {
+            emitter.send(SseEmitter.event().name("job").data(response));
+            if (complete) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("SSE client gone for job {}: {}", response.getJobId(), e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * Deserialize the stored request payload for a worker
+     */
+    public RecipeRequest readRequest(GenerationJob job) {
+        try {
+            return objectMapper.readValue(job.getRequest(), RecipeRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt generation job payload: " + job.getId(), e);
+        }
+    }
+
+    private GenerationJobResponse toResponse(GenerationJob job) {
+        return GenerationJobResponse.builder()
+                .jobId(job.getId())
+                .status(job.getStatus())
+                .attempts(job.getAttempts())
+                .recipeId(job.getRecipeId())
+                .errorMessage(job.getErrorMessage())
+                .createdAt(job.getCreatedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+
+}
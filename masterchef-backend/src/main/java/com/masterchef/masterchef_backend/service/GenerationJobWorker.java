@@ -0,0 +1,165 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.masterchef.masterchef_backend.config.GenerationJobProperties;
+import com.masterchef.masterchef_backend.config.NodeIdentity;
+import com.masterchef.masterchef_backend.dto.RecipeRequest;
+import com.masterchef.masterchef_backend.dto.RecipeResponse;
+import com.masterchef.masterchef_backend.models.GenerationJob;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background worker pool that runs queued generation jobs
+ *
+ * Polls only for as many jobs as it has idle threads, so a node never claims
+ * work it cannot start. Inference runs here, never on a request thread.
+ * A heartbeat keeps extending the locks of running jobs, so a generation that outlasts the lock timeout
+ * is not reclaimed by another node while it is still running.
+ */
+@Slf4j
+@Component
+public class GenerationJobWorker {
+
+    private final GenerationJobService jobService;
+    private final RecipeService recipeService;
+    private final GenerationJobProperties properties;
+    private final String workerId;
+    private final ExecutorService executor;
+    private final Semaphore idleThreads;
+    private final Set<UUID> runningJobs = ConcurrentHashMap.newKeySet();
+    private final Counter succeededCounter;
+    private final Counter failedCounter;
+
+    public GenerationJobWorker(
+            GenerationJobService jobService,
+            RecipeService recipeService,
+            GenerationJobProperties properties,
+            NodeIdentity nodeIdentity,
+            MeterRegistry meterRegistry) {
+        this.jobService = jobService;
+        this.recipeService = recipeService;
+        this.properties = properties;
+        this.workerId = nodeIdentity.getNodeId();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(properties.getWorkerThreads(), runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("generation-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.idleThreads = new Semaphore(properties.getWorkerThreads());
+
+        this.succeededCounter = Counter.builder("generation.jobs.completed")
+                .description("Generation job attempts by outcome")
+                .tag("outcome", "succeeded")
+                .register(meterRegistry);
+
+        this.failedCounter = Counter.builder("generation.jobs.completed")
+                .description("Generation job attempts by outcome")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claim due jobs up to the number of idle worker threads
+     */
+    @Scheduled(fixedDelayString = "${generation-jobs.poll-interval-ms:1000}")
+    public void poll() {
+        if (!properties.isWorkerEnabled()) {
+            return;
+        }
+
+        int idle = idleThreads.availablePermits();
+        if (idle == 0 || !idleThreads.tryAcquire(idle)) {
+            return;
+        }
+
+        List<GenerationJob> jobs;
+        try {
+            jobs = jobService.claimJobs(idle, workerId);
+        } catch (Exception e) {
+            idleThreads.release(idle);
+            log.error("Failed to claim generation jobs: {}", e.getMessage());
+            return;
+        }
+
+        // Give back the threads we reserved but found no work for
+        idleThreads.release(idle - jobs.size());
+
+        for (GenerationJob job : jobs) {
+            runningJobs.add(job.getId());
+            executor.execute(() -> {
+                try {
+                    run(job);
+                } finally {
+                    runningJobs.remove(job.getId());
+                    idleThreads.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * Extend the locks of the jobs this node is running
+     */
+    @Scheduled(fixedDelayString = "${generation-jobs.heartbeat-interval-ms:60000}")
+    public void heartbeat() {
+        if (runningJobs.isEmpty()) {
+            return;
+        }
+
+        try {
+            jobService.extendLocks(List.copyOf(runningJobs), workerId);
+        } catch (Exception e) {
+            log.error("Failed to extend generation job locks: {}", e.getMessage());
+        }
+    }
+
+    private void run(GenerationJob job) {
+        log.info("Running generation job: id={}, attempt={}/{}", job.getId(), job.getAttempts(), job.getMaxAttempts());
+
+        try {
+            RecipeRequest request = jobService.readRequest(job);
+            RecipeResponse response = recipeService.generateRecipe(request, job.getUserId());
+            jobService.completeJob(job, response.getId());
+            succeededCounter.increment();
+        } catch (Exception e) {
+            failedCounter.increment();
+            try {
+                jobService.failJob(job, e.getMessage());
+            } catch (Exception inner) {
+                // Lock expiry will hand the job to another worker
+                log.error("Failed to record job failure: id={}, error={}", job.getId(), inner.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stop taking work; jobs still running are reclaimed by other nodes once their lock expires
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Generation job workers still busy at shutdown; jobs will be reclaimed after lock expiry");
+            executor.shutdownNow();
+        }
+    }
+
+}
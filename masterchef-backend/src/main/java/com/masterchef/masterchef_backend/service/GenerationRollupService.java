@@ -0,0 +1,266 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.masterchef.masterchef_backend.config.AnalyticsProperties;
+import com.masterchef.masterchef_backend.dto.GenerationTimeSeriesResponse;
+import com.masterchef.masterchef_backend.exception.InvalidRequestException;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Time-bucketed generation analytics (generation_rollups)
+ *
+ * Design:
+ * Every audit batch is folded in memory into (granularity, bucket, model, status, cached) cells
+ * and upserted once per cell, in the audit writer's transaction; nothing scans recipe_generations
+ * Latency is kept as a fixed-bucket histogram (LatencyHistogram), merged element-wise on upsert,
+ * so p50/p95 survive aggregation across cells, nodes and time
+ * Cells are upserted in key order so concurrent flushes from several nodes cannot deadlock
+ * Minute and hour rows are pruned after their retention; day rows are kept by default
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GenerationRollupService {
+
+    private static final String UPSERT_SQL = "INSERT INTO generation_rollups "
+            + "(granularity, bucket_start, model_used, status, cached, generations, tokens_used, cost_cents, "
+            + "latency_samples, latency_total_ms, latency_max_ms, latency_histogram, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, LOCALTIMESTAMP) "
+            + "ON CONFLICT (granularity, bucket_start, model_used, status, cached) DO UPDATE SET "
+            + "generations = generation_rollups.generations + EXCLUDED.generations, "
+            + "tokens_used = generation_rollups.tokens_used + EXCLUDED.tokens_used, "
+            + "cost_cents = generation_rollups.cost_cents + EXCLUDED.cost_cents, "
+            + "latency_samples = generation_rollups.latency_samples + EXCLUDED.latency_samples, "
+            + "latency_total_ms = generation_rollups.latency_total_ms + EXCLUDED.latency_total_ms, "
+            + "latency_max_ms = GREATEST(generation_rollups.latency_max_ms, EXCLUDED.latency_max_ms), "
+            + "latency_histogram = ARRAY(SELECT COALESCE(h.stored, 0) + COALESCE(h.added, 0) "
+            + "FROM unnest(generation_rollups.latency_histogram, EXCLUDED.latency_histogram) "
+            + "WITH ORDINALITY AS h(stored, added, i) ORDER BY h.i), "
+            + "updated_at = LOCALTIMESTAMP";
+
+    private static final String SELECT_SQL = "SELECT bucket_start, model_used, status, cached, generations, "
+            + "tokens_used, cost_cents, latency_samples, latency_total_ms, latency_max_ms, latency_histogram "
+            + "FROM generation_rollups WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ? "
+            + "AND (CAST(? AS VARCHAR) IS NULL OR model_used = ?) "
+            + "ORDER BY bucket_start";
+
+    private static final String PRUNE_SQL = "DELETE FROM generation_rollups "
+            + "WHERE granularity = ? AND bucket_start < LOCALTIMESTAMP - make_interval(secs => ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AnalyticsProperties properties;
+
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES),
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        Duration duration() {
+            return unit.getDuration();
+        }
+    }
+
+    private record Cell(Granularity granularity, LocalDateTime bucketStart, String model, String status, boolean cached) {
+
+        static final Comparator<Cell> ORDER = Comparator.comparing(Cell::granularity)
+                .thenComparing(Cell::bucketStart)
+                .thenComparing(Cell::model)
+                .thenComparing(Cell::status)
+                .thenComparing(Cell::cached);
+    }
+
+    /**
+     * Running totals for one cell, or for one point of a query result
+     */
+    private static final class Totals {
+        long generations;
+        long cacheHits;
+        long failures;
+        long tokens;
+        long costCents;
+        long latencySamples;
+        long latencyTotalMs;
+        long latencyMaxMs;
+        final long[] histogram = new long[LatencyHistogram.SIZE];
+    }
+
+    /**
+     * Fold an audit batch into the rollups; must run in the transaction that inserts the batch
+     */
+    public void applyGenerations(List<GenerationAuditRecord> batch) {
+        if (!properties.isRollupsEnabled() || batch.isEmpty()) {
+            return;
+        }
+
+        Map<Cell, Totals> cells = new TreeMap<>(Cell.ORDER);
+        for (GenerationAuditRecord record : batch) {
+            String model = record.modelUsed() != null ? record.modelUsed() : "unknown";
+            String status = record.status() != null ? record.status() : "UNKNOWN";
+
+            for (Granularity granularity : Granularity.values()) {
+                Cell cell = new Cell(granularity, granularity.truncate(record.createdAt()), model, status, record.cached());
+                Totals totals = cells.computeIfAbsent(cell, c -> new Totals());
+                totals.generations++;
+                totals.tokens += record.tokensUsed() != null ? record.tokensUsed() : 0;
+                totals.costCents += record.costCents() != null ? record.costCents() : 0;
+                if (record.latencyMs() != null) {
+                    totals.latencySamples++;
+                    totals.latencyTotalMs += record.latencyMs();
+                    totals.latencyMaxMs = Math.max(totals.latencyMaxMs, record.latencyMs());
+                    totals.histogram[LatencyHistogram.bucketOf(record.latencyMs())]++;
+                }
+            }
+        }
+
+        List<Map.Entry<Cell, Totals>> rows = new ArrayList<>(cells.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), this::bind);
+    }
+
+    private void bind(PreparedStatement ps, Map.Entry<Cell, Totals> row) throws SQLException {
+        Cell cell = row.getKey();
+        Totals totals = row.getValue();
+
+        Long[] histogram = new Long[totals.histogram.length];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = totals.histogram[i];
+        }
+
+        ps.setString(1, cell.granularity().name());
+        ps.setTimestamp(2, Timestamp.valueOf(cell.bucketStart()));
+        ps.setString(3, cell.model());
+        ps.setString(4, cell.status());
+        ps.setBoolean(5, cell.cached());
+        ps.setLong(6, totals.generations);
+        ps.setLong(7, totals.tokens);
+        ps.setLong(8, totals.costCents);
+        ps.setLong(9, totals.latencySamples);
+        ps.setLong(10, totals.latencyTotalMs);
+        ps.setLong(11, totals.latencyMaxMs);
+        ps.setArray(12, ps.getConnection().createArrayOf("bigint", histogram));
+    }
+
+    /**
+     * Time series for [from, to); one point per bucket, or per bucket and model when groupByModel
+     */
+    public GenerationTimeSeriesResponse timeSeries(Granularity granularity, LocalDateTime from, LocalDateTime to,
+            String model, boolean groupByModel) {
+        LocalDateTime start = granularity.truncate(from);
+        if (!to.isAfter(start)) {
+            throw new InvalidRequestException("'to' must be after 'from'");
+        }
+
+        long buckets = Duration.between(start, to).dividedBy(granularity.duration()) + 1;
+        if (buckets > properties.getMaxPoints()) {
+            throw new InvalidRequestException("Range spans " + buckets + " " + granularity
+                    + " buckets; at most " + properties.getMaxPoints() + " allowed, use a coarser granularity");
+        }
+
+        Comparator<Map.Entry<LocalDateTime, String>> pointOrder = Map.Entry.<LocalDateTime, String>comparingByKey()
+                .thenComparing(Map.Entry.comparingByValue());
+        Map<Map.Entry<LocalDateTime, String>, Totals> points = new TreeMap<>(pointOrder);
+
+        jdbcTemplate.query(SELECT_SQL, (RowCallbackHandler) rs -> {
+            LocalDateTime bucketStart = rs.getTimestamp("bucket_start").toLocalDateTime();
+            String rowModel = rs.getString("model_used");
+            String status = rs.getString("status");
+            long generations = rs.getLong("generations");
+
+            Totals totals = points.computeIfAbsent(
+                    Map.entry(bucketStart, groupByModel ? rowModel : ""), key -> new Totals());
+            totals.generations += generations;
+            if (rs.getBoolean("cached")) {
+                totals.cacheHits += generations;
+            }
+            if (!"SUCCESS".equals(status) && !"CACHE_HIT".equals(status)) {
+                totals.failures += generations;
+            }
+            totals.tokens += rs.getLong("tokens_used");
+            totals.costCents += rs.getLong("cost_cents");
+            totals.latencySamples += rs.getLong("latency_samples");
+            totals.latencyTotalMs += rs.getLong("latency_total_ms");
+            totals.latencyMaxMs = Math.max(totals.latencyMaxMs, rs.getLong("latency_max_ms"));
+
+            Array histogram = rs.getArray("latency_histogram");
+            if (histogram != null) {
+                LatencyHistogram.merge(totals.histogram, (Long[]) histogram.getArray());
+            }
+        }, granularity.name(), Timestamp.valueOf(start), Timestamp.valueOf(to), model, model);
+
+        List<GenerationTimeSeriesResponse.Point> series = new ArrayList<>(points.size());
+        points.forEach((key, totals) -> series.add(GenerationTimeSeriesResponse.Point.builder()
+                .bucketStart(key.getKey())
+                .model(groupByModel ? key.getValue() : model)
+                .generations(totals.generations)
+                .cacheHits(totals.cacheHits)
+                .failures(totals.failures)
+                .tokensUsed(totals.tokens)
+                .costCents(totals.costCents)
+                .averageLatencyMs(totals.latencySamples > 0
+                        ? (double) totals.latencyTotalMs / totals.latencySamples : null)
+                .p50LatencyMs(LatencyHistogram.percentile(totals.histogram, 0.50, totals.latencyMaxMs))
+                .p95LatencyMs(LatencyHistogram.percentile(totals.histogram, 0.95, totals.latencyMaxMs))
+                .maxLatencyMs(totals.latencySamples > 0 ? totals.latencyMaxMs : null)
+                .build()));
+
+        return GenerationTimeSeriesResponse.builder()
+                .granularity(granularity.name())
+                .from(start)
+                .to(to)
+                .points(series)
+                .build();
+    }
+
+    /**
+     * Drop minute/hour (and optionally day) rollups past their retention
+     */
+    @Scheduled(fixedDelayString = "${analytics.prune-interval-ms:3600000}")
+    public void pruneExpired() {
+        prune(Granularity.MINUTE, properties.getMinuteRetention());
+        prune(Granularity.HOUR, properties.getHourRetention());
+        prune(Granularity.DAY, properties.getDayRetention());
+    }
+
+    private void prune(Granularity granularity, Duration retention) {
+        if (retention == null || retention.isZero() || retention.isNegative()) {
+            return;
+        }
+        try {
+            int deleted = jdbcTemplate.update(PRUNE_SQL, granularity.name(), retention.toSeconds());
+            if (deleted > 0) {
+                log.info("Pruned {} {} generation rollups", deleted, granularity);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to prune {} generation rollups: {}", granularity, e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,300 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Parses LLM output as JSON, repairing common defects in a single pass when strict parsing fails
+ *
+ * Repairs:
+ * Prose or markdown fences around the JSON (everything before the first '{'/'[' and after the root closes)
+ * Trailing commas, mismatched closing brackets
+ * Single-quoted strings, unquoted keys
+ * Unescaped quotes and raw newlines inside strings
+ * Truncation: open strings, arrays and objects are closed; a dangling key or ':' gets a null value
+ *
+ * Metrics: llm.output.repair{result=clean|repaired|failed}, and llm.output.repair.saved - the generation
+ * latency of every output that repair rescued (a regeneration would have cost about as much again)
+ */
+@Slf4j
+@Component
+public class JsonRepairEngine {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Counter cleanCounter;
+    private final Counter repairedCounter;
+    private final Counter failedCounter;
+    private final Timer savedTimer;
+
+    public JsonRepairEngine(MeterRegistry meterRegistry) {
+        this.cleanCounter = Counter.builder("llm.output.repair")
+                .description("LLM outputs by whether they parsed as-is, after repair, or not at all")
+                .tag("result", "clean")
+                .register(meterRegistry);
+
+        this.repairedCounter = Counter.builder("llm.output.repair")
+                .description("LLM outputs by whether they parsed as-is, after repair, or not at all")
+                .tag("result", "repaired")
+                .register(meterRegistry);
+
+        this.failedCounter = Counter.builder("llm.output.repair")
+                .description("LLM outputs by whether they parsed as-is, after repair, or not at all")
+                .tag("result", "failed")
+                .register(meterRegistry);
+
+        this.savedTimer = Timer.builder("llm.output.repair.saved")
+                .description("Generation time not spent on regeneration because repair rescued the output")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Parse output, repairing it if needed; null when even the repaired text is not JSON
+     *
+     * @param generationLatencyMs latency of the generation that produced the output (credited as saved on repair)
+     */
+    public JsonNode parse(String output, Long generationLatencyMs) {
+        try {
+            JsonNode root = objectMapper.readTree(stripFences(output));
+            if (root != null && root.isContainerNode()) {
+                cleanCounter.increment();
+                return root;
+            }
+        } catch (JsonProcessingException e) {
+            log.debug("Strict JSON parse failed, attempting repair: {}", e.getOriginalMessage());
+        }
+
+        String repaired = repair(output);
+        if (repaired != null) {
+            try {
+                JsonNode root = objectMapper.readTree(repaired);
+                if (root != null && root.isContainerNode()) {
+                    repairedCounter.increment();
+                    if (generationLatencyMs != null && generationLatencyMs > 0) {
+                        savedTimer.record(generationLatencyMs, TimeUnit.MILLISECONDS);
+                    }
+                    log.info("Repaired malformed LLM output ({} -> {} chars)", output.length(), repaired.length());
+                    return root;
+                }
+            } catch (JsonProcessingException e) {
+                log.warn("LLM output could not be repaired: {}", e.getOriginalMessage());
+            }
+        }
+
+        failedCounter.increment();
+        return null;
+    }
+
+    private static String stripFences(String output) {
+        String clean = output.trim();
+        if (clean.startsWith("```json")) {
+            clean = clean.substring(7);
+        }
+        if (clean.startsWith("```")) {
+            clean = clean.substring(3);
+        }
+        if (clean.endsWith("```")) {
+            clean = clean.substring(0, clean.length() - 3);
+        }
+        return clean.trim();
+    }
+
+    /**
+     * Single left-to-right pass; returns null when there is no JSON container in the text at all
+     */
+    static String repair(String text) {
+        int start = firstContainerStart(text);
+        if (start < 0) {
+            return null;
+        }
+
+        StringBuilder out = new StringBuilder(text.length() + 16);
+        Deque<Frame> stack = new ArrayDeque<>();
+        char quote = 0;         // open string delimiter, 0 outside strings
+        boolean escaped = false;
+
+        int i = start;
+        for (; i < text.length() && (stack.size() > 0 || i == start); i++) {
+            char c = text.charAt(i);
+
+            if (quote != 0) {
+                if (escaped) {
+                    out.append(c);
+                    escaped = false;
+                } else if (c == '\\') {
+                    out.append(c);
+                    escaped = true;
+                } else if (c == quote && closesString(text, i + 1)) {
+                    out.append('"');
+                    quote = 0;
+                    stack.peek().afterString();
+                } else if (c == '"') {
+                    out.append("\\\"");
+                } else if (c == '\n') {
+                    out.append("\\n");
+                } else if (c == '\r') {
+                    out.append("\\r");
+                } else if (c == '\t') {
+                    out.append("\\t");
+                } else {
+                    out.append(c);
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '{', '[' -> {
+                    if (!stack.isEmpty()) {
+                        stack.peek().afterValue();
+                    }
+                    stack.push(new Frame(c == '{'));
+                    out.append(c);
+                }
+                case '}', ']' -> {
+                    Frame frame = stack.pop();
+                    closeFrame(out, frame);
+                }
+                case '"', '\'' -> {
+                    quote = c;
+                    out.append('"');
+                }
+                case ',' -> {
+                    Frame frame = stack.peek();
+                    dropTrailingComma(out);
+                    out.append(',');
+                    frame.afterComma();
+                }
+                case ':' -> {
+                    out.append(':');
+                    stack.peek().afterColon();
+                }
+                default -> {
+                    Frame frame = stack.peek();
+                    if (frame.object && frame.expectingKey() && (Character.isLetter(c) || c == '_')) {
+                        // Unquoted key
+                        int end = i;
+                        while (end < text.length()
+                                && (Character.isLetterOrDigit(text.charAt(end)) || text.charAt(end) == '_')) {
+                            end++;
+                        }
+                        out.append('"').append(text, i, end).append('"');
+                        frame.afterString();
+                        i = end - 1;
+                    } else {
+                        if (!Character.isWhitespace(c)) {
+                            frame.afterValue();
+                        }
+                        out.append(c);
+                    }
+                }
+            }
+        }
+
+        // Truncated output: close whatever is still open
+        if (quote != 0) {
+            if (escaped) {
+                out.setLength(out.length() - 1);
+            }
+            out.append('"');
+            stack.peek().afterString();
+        }
+        while (!stack.isEmpty()) {
+            closeFrame(out, stack.pop());
+        }
+        return out.toString();
+    }
+
+    private static void closeFrame(StringBuilder out, Frame frame) {
+        dropTrailingComma(out);
+        if (frame.object) {
+            if (frame.state == Frame.AFTER_KEY) {
+                out.append(":null");
+            } else if (frame.state == Frame.EXPECT_VALUE) {
+                out.append("null");
+            }
+        }
+        out.append(frame.object ? '}' : ']');
+    }
+
+    /**
+     * A quote closes the string when the next significant character can follow a string (or the text ends)
+     */
+    private static boolean closesString(String text, int from) {
+        for (int j = from; j < text.length(); j++) {
+            char next = text.charAt(j);
+            if (!Character.isWhitespace(next)) {
+                return next == ',' || next == ':' || next == '}' || next == ']';
+            }
+        }
+        return true;
+    }
+
+    private static void dropTrailingComma(StringBuilder out) {
+        int end = out.length();
+        while (end > 0 && Character.isWhitespace(out.charAt(end - 1))) {
+            end--;
+        }
+        if (end > 0 && out.charAt(end - 1) == ',') {
+            out.setLength(end - 1);
+        }
+    }
+
+    private static int firstContainerStart(String text) {
+        int brace = text.indexOf('{');
+        int bracket = text.indexOf('[');
+        if (brace < 0) {
+            return bracket;
+        }
+        return bracket < 0 ? brace : Math.min(brace, bracket);
+    }
+
+    /**
+     * Open object or array; objects track where they are in the key/value sequence
+     */
+    private static final class Frame {
+
+        static final int EXPECT_KEY = 0;
+        static final int AFTER_KEY = 1;
+        static final int EXPECT_VALUE = 2;
+        static final int AFTER_VALUE = 3;
+
+        final boolean object;
+        int state = EXPECT_KEY;
+
+        Frame(boolean object) {
+            this.object = object;
+        }
+
+        boolean expectingKey() {
+            return state == EXPECT_KEY;
+        }
+
+        void afterString() {
+            state = object && state == EXPECT_KEY ? AFTER_KEY : AFTER_VALUE;
+        }
+
+        void afterValue() {
+            state = AFTER_VALUE;
+        }
+
+        void afterColon() {
+            state = EXPECT_VALUE;
+        }
+
+        void afterComma() {
+            state = EXPECT_KEY;
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.masterchef.masterchef_backend.service;
+
+/**
+ * Fixed-bucket latency histogram used as a mergeable percentile sketch
+ *
+ * Counts are kept per bucket (upper bounds below, plus an overflow bucket), so
+ * histograms from different minutes, models or nodes merge by element-wise addition.
+ * Percentiles are interpolated inside the bucket that crosses the requested rank.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Inclusive upper bounds in milliseconds; the last bucket holds everything slower
+     */
+    private static final long[] BOUNDS_MS = {
+            50, 100, 250, 500, 750, 1_000, 1_500, 2_000, 3_000, 4_000, 5_000,
+            7_500, 10_000, 15_000, 20_000, 30_000, 45_000, 60_000, 120_000
+    };
+
+    public static final int SIZE = BOUNDS_MS.length + 1;
+
+    private LatencyHistogram() {
+    }
+
+    public static int bucketOf(long latencyMs) {
+        for (int i = 0; i < BOUNDS_MS.length; i++) {
+            if (latencyMs <= BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BOUNDS_MS.length;
+    }
+
+    public static void merge(long[] into, Long[] counts) {
+        for (int i = 0; i < Math.min(into.length, counts.length); i++) {
+            if (counts[i] != null) {
+                into[i] += counts[i];
+            }
+        }
+    }
+
+    /**
+     * Estimate a percentile (0..1); maxMs caps the overflow bucket's upper edge
+     */
+    public static Double percentile(long[] counts, double quantile, long maxMs) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return null;
+        }
+
+        double rank = quantile * total;
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (seen + counts[i] >= rank) {
+                double lower = i == 0 ? 0 : BOUNDS_MS[i - 1];
+                double upper = i < BOUNDS_MS.length ? BOUNDS_MS[i] : Math.max(maxMs, BOUNDS_MS[BOUNDS_MS.length - 1]);
+                double fraction = (rank - seen) / counts[i];
+                return Math.min(lower + fraction * (upper - lower), Math.max(maxMs, lower));
+            }
+            seen += counts[i];
+        }
+        return (double) maxMs;
+    }
+
+}
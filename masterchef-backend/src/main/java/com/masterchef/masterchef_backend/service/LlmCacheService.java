@@ -1,9 +1,11 @@
 package com.masterchef.masterchef_backend.service;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -22,7 +24,7 @@ import lombok.extern.slf4j.Slf4j;
  * Manages LLM response caching with SHA-256 content-addressable storage.
  * 
  * Caching strategy:
- * Input hashing: SHA-256 of normalized prompt
+ * Input hashing: SHA-256 of normalized prompt (prefixed with the prompt template version)
  * TTL: Configurable expiration (default 7 days)
  * Storage: PostgreSQL llm_cache table
  * Normalization: Lowercase, trim, sorted ingredients
@@ -85,6 +87,7 @@ public class LlmCacheService {
                 .latencyMs(0L) // Cache hits are near-instant
                 .generatedAt(entry.getCreatedAt())
                 .status("CACHE_HIT")
+                .cacheKey(hash)
                 .build());
     }
     
@@ -94,10 +97,24 @@ public class LlmCacheService {
     @Transactional
     public void cacheResponse(LlmRequest request, LlmResponse response) {
         String hash = computeHash(request);
+        response.setCacheKey(hash);
         
         // Check if already cached (race condition handling)
-        if (cacheRepository.findByInputHash(hash).isPresent()) {
-            log.debug("Cache entry already exists: hash={}", hash);
+        Optional<LlmCache> existing = cacheRepository.findByInputHash(hash);
+        if (existing.isPresent()) {
+            if (request.isSkipCache()) {
+                // Deliberate regeneration: the cached output was unusable, replace it
+                // (audit rows of earlier hits keep the hash of what they got, so they no longer resolve to it)
+                LlmCache entry = existing.get();
+                entry.setResponse(response.getContent());
+                entry.setModel(response.getModel());
+                entry.setTokensUsed(response.getTokensUsed());
+                entry.setExpiresAt(LocalDateTime.now().plusDays(cacheTtlDays));
+                cacheRepository.save(entry);
+                log.info("Replaced cached LLM response: hash={}", hash);
+            } else {
+                log.debug("Cache entry already exists: hash={}", hash);
+            }
             return;
         }
         
@@ -129,6 +146,36 @@ public class LlmCacheService {
         return deleted;
     }
     
+    /**
+     * Cached response text by cache key (expired entries count until cleanup removes them)
+     * Used to resolve audit rows that reference a cache hit instead of copying the response
+     * Empty unless the entry still holds the response the row was served (responseHash): a regeneration
+     * replaces the entry in place, and rows without a hash cannot be verified
+     */
+    public Optional<String> findResponseByKey(String cacheKey, String responseHash) {
+        if (cacheKey == null || responseHash == null) {
+            return Optional.empty();
+        }
+        return cacheRepository.findByInputHash(cacheKey)
+                .map(LlmCache::getResponse)
+                .filter(response -> responseHash.equals(responseHash(response)));
+    }
+
+    /**
+     * SHA-256 (hex) of a response text, null for no response
+     */
+    public static String responseHash(String response) {
+        if (response == null) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(response.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 algorithm not available", e);
+        }
+    }
+    
     /**
      * Get cache statistics
      */
@@ -188,6 +235,7 @@ public class LlmCacheService {
      * Trim whitespace
      * Include model name (different models = different hash)
      * Include temperature (affects output)
+     * Include the context tokens of refinements
      */
     private String computeHash(LlmRequest request) {
         try {
@@ -195,7 +243,15 @@ public class LlmCacheService {
             String normalizedInput = normalizeInput(request);
             
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(normalizedInput.getBytes(StandardCharsets.UTF_8));
+            digest.update(normalizedInput.getBytes(StandardCharsets.UTF_8));
+
+            // Refinements: the same instruction on top of a different recipe is a different request
+            if (request.getContext() != null) {
+                ByteBuffer context = ByteBuffer.allocate(request.getContext().length * Integer.BYTES);
+                context.asIntBuffer().put(request.getContext());
+                digest.update(context);
+            }
+            byte[] hashBytes = digest.digest();
             
             // Convert to hex string
             StringBuilder hexString = new StringBuilder();
@@ -221,10 +277,13 @@ public class LlmCacheService {
     private String normalizeInput(LlmRequest request) {
         // Combine prompt + model + temperature for hash
         // This ensures different models or temperatures don't share cache
-        return String.format("%s|%s|%.2f", 
+        String normalized = String.format("%s|%s|%.2f", 
                 request.getPrompt().toLowerCase().trim(),
                 request.getModel() != null ? request.getModel() : "default",
                 request.getTemperature());
+
+        // Template version: a new template version starts with a clean cache
+        return request.getTemplateId() != null ? request.getTemplateId() + "|" + normalized : normalized;
     }
     
     /**
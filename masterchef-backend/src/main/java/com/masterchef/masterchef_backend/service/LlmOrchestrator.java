@@ -9,7 +9,6 @@ import com.masterchef.masterchef_backend.dto.LlmResponse;
 import com.masterchef.masterchef_backend.llm.LlmClient;
 
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import io.github.resilience4j.retry.annotation.Retry;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -22,13 +21,14 @@ import lombok.extern.slf4j.Slf4j;
  * Resilience patterns applied:
  * - Circuit Breaker: Fails fast when Ollama is unavailable (50% failure threshold)
  * - Retry: 3 attempts with exponential backoff for transient failures
- * - Rate Limiter: 10 requests per minute per user
+ * - Rate Limiter: per-user token bucket sized by the user's plan (default 10 requests per minute)
+ * - Cluster Permits: global LLM concurrency budget shared by all backend nodes
  * 
  * Request flow:
- * 1. Rate limiter checks quota
+ * 1. Per-user rate limiter checks quota (once per user request: attempts marked rateLimitCharged skip it)
  * 2. Circuit breaker checks if LLM is healthy
  * 3. Check cache for matching hash
- * 4. If cache miss: call LLM with retry logic
+ * 4. If cache miss: take a cluster permit, call LLM with retry logic
  * 5. Cache successful response
  * 6. Record metrics
  */
@@ -38,6 +38,8 @@ public class LlmOrchestrator {
     
     private final LlmClient llmClient;
     private final LlmCacheService cacheService;
+    private final UserRateLimiter userRateLimiter;
+    private final ClusterPermitService clusterPermitService;
     private final Counter cacheHitCounter;
     private final Counter cacheMissCounter;
     private final Timer llmCallTimer;
@@ -45,9 +47,13 @@ public class LlmOrchestrator {
     public LlmOrchestrator(
             LlmClient llmClient, 
             LlmCacheService cacheService,
+            UserRateLimiter userRateLimiter,
+            ClusterPermitService clusterPermitService,
             MeterRegistry meterRegistry) {
         this.llmClient = llmClient;
         this.cacheService = cacheService;
+        this.userRateLimiter = userRateLimiter;
+        this.clusterPermitService = clusterPermitService;
         
         // Register custom metrics
         this.cacheHitCounter = Counter.builder("llm.cache.hits")
@@ -69,18 +75,27 @@ public class LlmOrchestrator {
      * @param request LLM request (contains prompt, model, temperature)
      * @return LLM response (either cached or freshly generated)
      */
-    @RateLimiter(name = "recipe-generation", fallbackMethod = "rateLimitFallback")
     @CircuitBreaker(name = "llm-circuit", fallbackMethod = "circuitBreakerFallback")
     public LlmResponse generateWithCache(LlmRequest request) {
         long startTime = System.currentTimeMillis();
         
+        // Step 0: Per-user quota, unless the caller already charged the user request
+        if (!request.isRateLimitCharged()) {
+            LlmResponse rateLimited = chargeRateLimit(request.getUserId(), request.getPlan());
+            if (rateLimited != null) {
+                return rateLimited;
+            }
+        }
+        
         log.debug("LLM request: model={}, promptLength={}, temperature={}", 
                 request.getModel(), 
                 request.getPrompt().length(),
                 request.getTemperature());
         
-        // Step 1: Check cache
-        Optional<LlmResponse> cachedResponse = cacheService.getCachedResponse(request);
+        // Step 1: Check cache (unless the caller asked for a fresh generation)
+        Optional<LlmResponse> cachedResponse = request.isSkipCache()
+                ? Optional.empty()
+                : cacheService.getCachedResponse(request);
         
         if (cachedResponse.isPresent()) {
             cacheHitCounter.increment();
@@ -96,6 +111,10 @@ public class LlmOrchestrator {
         
         log.info("Cache miss: calling LLM client, model={}", request.getModel());
         
+        if (!clusterPermitService.acquire()) {
+            return capacityExhaustedResponse(request);
+        }
+        
         LlmResponse response;
         try {
             response = callLlmWithRetry(request);
@@ -108,6 +127,8 @@ public class LlmOrchestrator {
                     .cached(false)
                     .latencyMs(System.currentTimeMillis() - startTime)
                     .build();
+        } finally {
+            clusterPermitService.release();
         }
         
         // Step 3: Cache successful response
@@ -125,6 +146,16 @@ public class LlmOrchestrator {
         return response;
     }
     
+    /**
+     * Charge the user's rate limit once for a user request that may take several LLM attempts
+     * The caller then marks its attempts rateLimitCharged
+     *
+     * @return RATE_LIMITED response when the user is over the limit, null when the request may proceed
+     */
+    public LlmResponse chargeRateLimit(String userId, String plan) {
+        return userRateLimiter.tryAcquire(userId, plan) ? null : rateLimitFallback(userId, plan);
+    }
+    
     /**
      * Call LLM with retry logic (separate method for @Retry annotation)
      */
@@ -134,10 +165,10 @@ public class LlmOrchestrator {
     }
     
     /**
-     * Fallback when rate limit is exceeded
+     * Response when the user's rate limit is exceeded
      */
-    private LlmResponse rateLimitFallback(LlmRequest request, Exception e) {
-        log.warn("Rate limit exceeded for request: {}", request.getPrompt().substring(0, 50));
+    private LlmResponse rateLimitFallback(String userId, String plan) {
+        log.warn("Rate limit exceeded: user={}, plan={}", userId, plan);
         
         return LlmResponse.builder()
                 .model("N/A")
@@ -148,6 +179,21 @@ public class LlmOrchestrator {
                 .build();
     }
     
+    /**
+     * Response when the cluster-wide LLM budget stays exhausted past the acquire timeout
+     */
+    private LlmResponse capacityExhaustedResponse(LlmRequest request) {
+        log.warn("Cluster LLM capacity exhausted: user={}, model={}", request.getUserId(), request.getModel());
+        
+        return LlmResponse.builder()
+                .model("N/A")
+                .status("SERVICE_UNAVAILABLE")
+                .errorMessage("All recipe generators are busy. Please try again shortly.")
+                .cached(false)
+                .latencyMs(0L)
+                .build();
+    }
+    
     /**
      * Fallback when circuit breaker is open (LLM unavailable)
      */
@@ -0,0 +1,140 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.masterchef.masterchef_backend.config.ModelRoutingProperties;
+import com.masterchef.masterchef_backend.dto.RecipeRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Picks the model tier for a recipe request (llm.routing)
+ *
+ * Routing: the first tier whose rules accept the request (ingredient count, constraints)
+ * Escalation: RecipeService moves to the next tier when the output cannot be parsed, fails schema validation,
+ * breaks the requested dietary preferences, or the generation itself fails
+ *
+ * Metrics: llm.route.requests{tier} (starting tier), llm.route.escalations{from, reason},
+ * llm.route.latency{tier} (every generation attempt, cache hits included)
+ */
+@Slf4j
+@Service
+public class ModelRouter {
+
+    /**
+     * Resolved tier; index is its position in the escalation order
+     */
+    public record Tier(int index, String name, String model) {
+    }
+
+    public enum EscalationReason {
+        GENERATION_FAILED,
+        UNPARSEABLE,
+        SCHEMA_VIOLATION,
+        DIETARY_VIOLATION
+    }
+
+    private final ModelRoutingProperties properties;
+    private final String defaultModel;
+    private final MeterRegistry meterRegistry;
+
+    public ModelRouter(
+            ModelRoutingProperties properties,
+            @Value("${llm.ollama.model}") String defaultModel,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.defaultModel = defaultModel;
+        this.meterRegistry = meterRegistry;
+
+        if (routingActive()) {
+            log.info("Model routing tiers: {}", properties.getTiers().stream()
+                    .map(tier -> tier.getName() + "=" + tier.getModel())
+                    .toList());
+        }
+    }
+
+    /**
+     * Starting tier for a request
+     */
+    public Tier route(List<String> ingredients, RecipeRequest request) {
+        boolean constrained = (request.getDietaryPreferences() != null && !request.getDietaryPreferences().isEmpty())
+                || request.getDifficulty() != null
+                || (request.getMaxTimeMinutes() != null && request.getMaxTimeMinutes() > 0);
+        return route(ingredients, constrained);
+    }
+
+    /**
+     * Starting tier for a request that does or does not carry constraints (refinements always do)
+     */
+    public Tier route(List<String> ingredients, boolean constrained) {
+        Tier tier = routingActive() ? firstAccepting(ingredients, constrained) : new Tier(0, "default", defaultModel);
+
+        Counter.builder("llm.route.requests")
+                .description("Recipe generations by starting model tier")
+                .tag("tier", tier.name())
+                .register(meterRegistry)
+                .increment();
+        return tier;
+    }
+
+    /**
+     * Next tier up, or null when the given tier is the last one
+     */
+    public Tier escalate(Tier from, EscalationReason reason) {
+        if (!routingActive() || from.index() + 1 >= properties.getTiers().size()) {
+            return null;
+        }
+
+        Tier next = tier(from.index() + 1);
+        Counter.builder("llm.route.escalations")
+                .description("Generations retried on a larger model tier, by tier and reason")
+                .tag("from", from.name())
+                .tag("reason", reason.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+
+        log.info("Escalating generation: {} -> {} ({})", from.name(), next.name(), reason);
+        return next;
+    }
+
+    /**
+     * Record one generation attempt on a tier
+     */
+    public void recordLatency(Tier tier, long latencyMs) {
+        Timer.builder("llm.route.latency")
+                .description("Generation latency by model tier")
+                .tag("tier", tier.name())
+                .register(meterRegistry)
+                .record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    private Tier firstAccepting(List<String> ingredients, boolean constrained) {
+        List<ModelRoutingProperties.Tier> tiers = properties.getTiers();
+        for (int i = 0; i < tiers.size() - 1; i++) {
+            ModelRoutingProperties.Tier tier = tiers.get(i);
+            boolean fits = tier.getMaxIngredients() == null || ingredients.size() <= tier.getMaxIngredients();
+            if (fits && (tier.isAllowConstraints() || !constrained)) {
+                return tier(i);
+            }
+        }
+        // The last tier takes everything
+        return tier(tiers.size() - 1);
+    }
+
+    private Tier tier(int index) {
+        ModelRoutingProperties.Tier tier = properties.getTiers().get(index);
+        return new Tier(index, tier.getName(), tier.getModel());
+    }
+
+    private boolean routingActive() {
+        return properties.isEnabled() && !properties.getTiers().isEmpty();
+    }
+
+}
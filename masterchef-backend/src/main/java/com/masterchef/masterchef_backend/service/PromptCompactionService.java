@@ -0,0 +1,245 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.masterchef.masterchef_backend.config.PromptCompactionProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A/B test of the compact recipe prompt against the full one
+ *
+ * The compact template (prompts/recipe-compact-v*.txt) asks for a terse schema with short keys;
+ * expand() maps them back so parsing and storage never see the difference
+ * Per variant: parse success/failure counters and Ollama's prompt_eval_count / eval_count
+ * Guard: once both variants have min-samples fresh generations, a compact parse success rate more than
+ * max-parse-success-drop below the full prompt's switches compaction off until restart
+ * Cache hits are not counted (their output was produced, and parsed, earlier)
+ */
+@Slf4j
+@Service
+public class PromptCompactionService {
+
+    public enum Variant {
+        FULL("recipe"),
+        COMPACT("recipe-compact");
+
+        private final String templateName;
+
+        Variant(String templateName) {
+            this.templateName = templateName;
+        }
+
+        public String templateName() {
+            return templateName;
+        }
+    }
+
+    private static final Map<String, String> TOP_LEVEL_KEYS = Map.of(
+            "t", "title",
+            "d", "description",
+            "pt", "prepTime",
+            "ct", "cookTime",
+            "df", "difficulty",
+            "cu", "cuisine",
+            "st", "instructions",
+            "in", "ingredients",
+            "nu", "nutritionInfo",
+            "tg", "tags");
+
+    private static final Map<String, String> INGREDIENT_KEYS = Map.of(
+            "n", "name",
+            "a", "amount",
+            "u", "unit");
+
+    private static final Map<String, String> NUTRITION_KEYS = Map.of(
+            "kcal", "calories",
+            "p", "protein",
+            "c", "carbs",
+            "f", "fat");
+
+    private static final Map<String, Map<String, String>> KEYS_BY_SCOPE = Map.of(
+            "", TOP_LEVEL_KEYS,
+            "ingredients", INGREDIENT_KEYS,
+            "nutritionInfo", NUTRITION_KEYS);
+
+    private final PromptCompactionProperties properties;
+    private final Map<Variant, Outcomes> outcomes = new EnumMap<>(Variant.class);
+    private volatile boolean compactDisabled;
+
+    public PromptCompactionService(PromptCompactionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+
+        for (Variant variant : Variant.values()) {
+            outcomes.put(variant, new Outcomes(variant, meterRegistry));
+        }
+
+        Gauge.builder("llm.prompt.compact.active", this, service -> service.compactActive() ? 1 : 0)
+                .description("1 while the compact prompt variant is being served")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Variant for the next fresh generation
+     */
+    public Variant choose() {
+        if (!compactActive()) {
+            return Variant.FULL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < properties.getCompactShare() ? Variant.COMPACT : Variant.FULL;
+    }
+
+    /**
+     * Rename the compact variant's short keys to the full schema (in place); FULL output is returned as-is
+     * Full keys the model produced anyway win over their short forms
+     */
+    public JsonNode expand(Variant variant, JsonNode root) {
+        if (variant != Variant.COMPACT || !(root instanceof ObjectNode object)) {
+            return root;
+        }
+
+        rename(object, TOP_LEVEL_KEYS);
+
+        JsonNode ingredients = object.path("ingredients");
+        if (ingredients.isArray()) {
+            for (JsonNode ingredient : ingredients) {
+                if (ingredient instanceof ObjectNode ingredientObject) {
+                    rename(ingredientObject, INGREDIENT_KEYS);
+                }
+            }
+        }
+
+        if (object.path("nutritionInfo") instanceof ObjectNode nutrition) {
+            rename(nutrition, NUTRITION_KEYS);
+        }
+        return object;
+    }
+
+    /**
+     * Short key the compact prompt uses for a full-schema key; scope is the enclosing property ("" at the top level)
+     * Keys without a short form are used unchanged
+     */
+    public static String shortKey(String scope, String fullKey) {
+        return KEYS_BY_SCOPE.getOrDefault(scope, Map.of()).entrySet().stream()
+                .filter(entry -> entry.getValue().equals(fullKey))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(fullKey);
+    }
+
+    /**
+     * Record the outcome of a fresh (non-cached) generation
+     */
+    public void recordOutcome(Variant variant, boolean parsed, Integer promptEvalCount, Integer evalCount) {
+        Outcomes stats = outcomes.get(variant);
+        stats.record(parsed, promptEvalCount, evalCount);
+
+        if (variant == Variant.COMPACT && !compactDisabled) {
+            checkGuard();
+        }
+    }
+
+    private boolean compactActive() {
+        return properties.isEnabled() && !compactDisabled && properties.getCompactShare() > 0;
+    }
+
+    private void checkGuard() {
+        Outcomes full = outcomes.get(Variant.FULL);
+        Outcomes compact = outcomes.get(Variant.COMPACT);
+        if (full.attempts.get() < properties.getMinSamples() || compact.attempts.get() < properties.getMinSamples()) {
+            return;
+        }
+
+        double fullRate = full.successRate();
+        double compactRate = compact.successRate();
+        if (fullRate - compactRate > properties.getMaxParseSuccessDrop()) {
+            compactDisabled = true;
+            log.warn("Compact prompt disabled: parse success {} vs {} for the full prompt ({} / {} samples)",
+                    String.format("%.3f", compactRate), String.format("%.3f", fullRate),
+                    compact.attempts.get(), full.attempts.get());
+        }
+    }
+
+    private static void rename(ObjectNode node, Map<String, String> keys) {
+        for (Map.Entry<String, String> key : keys.entrySet()) {
+            JsonNode value = node.remove(key.getKey());
+            if (value != null && !node.has(key.getValue())) {
+                node.set(key.getValue(), value);
+            }
+        }
+    }
+
+    /**
+     * Per-variant counters and token distributions
+     */
+    private static final class Outcomes {
+
+        private final AtomicLong attempts = new AtomicLong();
+        private final AtomicLong successes = new AtomicLong();
+        private final Counter parsedCounter;
+        private final Counter failedCounter;
+        private final DistributionSummary promptTokens;
+        private final DistributionSummary outputTokens;
+
+        Outcomes(Variant variant, MeterRegistry meterRegistry) {
+            String tag = variant.name().toLowerCase();
+
+            this.parsedCounter = Counter.builder("llm.prompt.parse")
+                    .description("Fresh generations by prompt variant and whether the output parsed as a recipe")
+                    .tag("variant", tag)
+                    .tag("result", "parsed")
+                    .register(meterRegistry);
+
+            this.failedCounter = Counter.builder("llm.prompt.parse")
+                    .description("Fresh generations by prompt variant and whether the output parsed as a recipe")
+                    .tag("variant", tag)
+                    .tag("result", "failed")
+                    .register(meterRegistry);
+
+            this.promptTokens = DistributionSummary.builder("llm.prompt.tokens")
+                    .description("Prompt tokens evaluated by the model (Ollama prompt_eval_count)")
+                    .baseUnit("tokens")
+                    .tag("variant", tag)
+                    .register(meterRegistry);
+
+            this.outputTokens = DistributionSummary.builder("llm.output.tokens")
+                    .description("Tokens generated by the model (Ollama eval_count)")
+                    .baseUnit("tokens")
+                    .tag("variant", tag)
+                    .register(meterRegistry);
+        }
+
+        void record(boolean parsed, Integer promptEvalCount, Integer evalCount) {
+            attempts.incrementAndGet();
+            if (parsed) {
+                successes.incrementAndGet();
+                parsedCounter.increment();
+            } else {
+                failedCounter.increment();
+            }
+            if (promptEvalCount != null) {
+                promptTokens.record(promptEvalCount);
+            }
+            if (evalCount != null) {
+                outputTokens.record(evalCount);
+            }
+        }
+
+        double successRate() {
+            long total = attempts.get();
+            return total > 0 ? (double) successes.get() / total : 1.0;
+        }
+    }
+
+}
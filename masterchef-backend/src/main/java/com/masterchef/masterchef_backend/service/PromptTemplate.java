@@ -0,0 +1,140 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A prompt template compiled once into static segments and slots
+ *
+ * Syntax: {{slot}} inserts a value, {{#slot}}...{{/slot}} renders only when the slot is present
+ * Rendering measures the exact output length first, so each prompt costs one presized buffer and the final String
+ * (no regex, no intermediate copies, no buffer growth)
+ * Instances are immutable and shared across threads
+ */
+public final class PromptTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String id;
+    private final Part[] parts;
+
+    private PromptTemplate(String id, Part[] parts) {
+        this.id = id;
+        this.parts = parts;
+    }
+
+    /**
+     * Parse template text; malformed templates (unclosed tags, unbalanced sections) fail here, not at render time
+     */
+    public static PromptTemplate compile(String id, String text) {
+        Deque<Section> open = new ArrayDeque<>();
+        Deque<List<Part>> bodies = new ArrayDeque<>();
+        bodies.push(new ArrayList<>());
+
+        int pos = 0;
+        while (pos < text.length()) {
+            int tagStart = text.indexOf(OPEN, pos);
+            if (tagStart < 0) {
+                bodies.peek().add(new Literal(text.substring(pos)));
+                break;
+            }
+            if (tagStart > pos) {
+                bodies.peek().add(new Literal(text.substring(pos, tagStart)));
+            }
+
+            int tagEnd = text.indexOf(CLOSE, tagStart + OPEN.length());
+            if (tagEnd < 0) {
+                throw new IllegalStateException("Prompt template " + id + ": unclosed tag at offset " + tagStart);
+            }
+            String tag = text.substring(tagStart + OPEN.length(), tagEnd).trim();
+
+            if (tag.startsWith("#")) {
+                open.push(new Section(name(id, tag.substring(1)), null));
+                bodies.push(new ArrayList<>());
+            } else if (tag.startsWith("/")) {
+                String closing = name(id, tag.substring(1));
+                if (open.isEmpty() || !open.peek().slot().equals(closing)) {
+                    throw new IllegalStateException("Prompt template " + id + ": unexpected {{/" + closing + "}}");
+                }
+                Part[] body = bodies.pop().toArray(new Part[0]);
+                bodies.peek().add(new Section(open.pop().slot(), body));
+            } else {
+                bodies.peek().add(new Slot(name(id, tag)));
+            }
+            pos = tagEnd + CLOSE.length();
+        }
+
+        if (!open.isEmpty()) {
+            throw new IllegalStateException("Prompt template " + id + ": unclosed section {{#" + open.peek().slot() + "}}");
+        }
+        return new PromptTemplate(id, bodies.pop().toArray(new Part[0]));
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Render with the given slot values; absent slots render empty and drop their sections
+     */
+    public String render(Map<String, String> slots) {
+        StringBuilder out = new StringBuilder(measure(parts, slots));
+        append(out, parts, slots);
+        return out.toString();
+    }
+
+    private static int measure(Part[] parts, Map<String, String> slots) {
+        int length = 0;
+        for (Part part : parts) {
+            if (part instanceof Literal literal) {
+                length += literal.text().length();
+            } else if (part instanceof Slot slot) {
+                String value = slots.get(slot.name());
+                length += value != null ? value.length() : 0;
+            } else if (part instanceof Section section && slots.get(section.slot()) != null) {
+                length += measure(section.body(), slots);
+            }
+        }
+        return length;
+    }
+
+    private static void append(StringBuilder out, Part[] parts, Map<String, String> slots) {
+        for (Part part : parts) {
+            if (part instanceof Literal literal) {
+                out.append(literal.text());
+            } else if (part instanceof Slot slot) {
+                String value = slots.get(slot.name());
+                if (value != null) {
+                    out.append(value);
+                }
+            } else if (part instanceof Section section && slots.get(section.slot()) != null) {
+                append(out, section.body(), slots);
+            }
+        }
+    }
+
+    private static String name(String templateId, String raw) {
+        String name = raw.trim();
+        if (name.isEmpty() || !name.chars().allMatch(c -> Character.isLetterOrDigit(c) || c == '_')) {
+            throw new IllegalStateException("Prompt template " + templateId + ": invalid slot name '" + raw + "'");
+        }
+        return name;
+    }
+
+    private interface Part {
+    }
+
+    private record Literal(String text) implements Part {
+    }
+
+    private record Slot(String name) implements Part {
+    }
+
+    private record Section(String slot, Part[] body) implements Part {
+    }
+
+}
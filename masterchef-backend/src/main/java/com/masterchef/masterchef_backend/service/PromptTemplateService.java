@@ -0,0 +1,175 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.masterchef.masterchef_backend.exception.ResourceNotFoundException;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Versioned LLM prompt templates (prompt_templates)
+ *
+ * Templates ship as classpath:prompts/{name}-v{version}.txt and are registered at startup
+ * A registered version is immutable: if the file content no longer matches the stored hash,
+ * startup fails - changed wording must be released as a new version
+ * Audit rows keep only the template id and the slot values; the exact prompt is re-rendered on demand,
+ * also for versions this build no longer ships (their text is loaded from the table)
+ *
+ * Templates are compiled once (PromptTemplate) and the compiled form is reused for every render
+ * The template id is part of the LLM cache key, so a new version never serves responses cached for an older one
+ */
+@Slf4j
+@Service
+public class PromptTemplateService {
+
+    private static final String LOCATION = "classpath:prompts/*.txt";
+    private static final Pattern FILE_NAME = Pattern.compile("([a-z0-9-]+)-v(\\d+)\\.txt");
+
+    private static final String INSERT_SQL = "INSERT INTO prompt_templates "
+            + "(id, name, version, content_hash, template) VALUES (?, ?, ?, ?, ?) "
+            + "ON CONFLICT (id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, PromptTemplate> templates = new ConcurrentHashMap<>();
+    private final Map<String, String> activeIds = new ConcurrentHashMap<>();
+
+    public PromptTemplateService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Load every bundled template and register it (idempotent across nodes and restarts)
+     */
+    @PostConstruct
+    public void registerBundledTemplates() throws IOException {
+        Map<String, Integer> latest = new HashMap<>();
+
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+            Matcher name = FILE_NAME.matcher(String.valueOf(resource.getFilename()));
+            if (!name.matches()) {
+                log.warn("Ignoring prompt template with unexpected file name: {}", resource.getFilename());
+                continue;
+            }
+
+            String templateName = name.group(1);
+            int version = Integer.parseInt(name.group(2));
+            String id = idOf(templateName, version);
+            String text = read(resource);
+            String hash = sha256(text);
+            PromptTemplate compiled = PromptTemplate.compile(id, text);
+
+            jdbcTemplate.update(INSERT_SQL, id, templateName, version, hash, text);
+            String storedHash = jdbcTemplate.queryForObject(
+                    "SELECT content_hash FROM prompt_templates WHERE id = ?", String.class, id);
+            if (!hash.equals(storedHash)) {
+                throw new IllegalStateException("Prompt template " + id
+                        + " differs from the registered version; release the change as a new version");
+            }
+
+            templates.put(id, compiled);
+            latest.merge(templateName, version, Math::max);
+        }
+
+        latest.forEach((templateName, version) -> activeIds.put(templateName, idOf(templateName, version)));
+        log.info("Prompt templates registered: active={}", activeIds.values());
+    }
+
+    /**
+     * Id of the newest bundled version of a template, e.g. recipe@1
+     */
+    public String activeId(String name) {
+        String id = activeIds.get(name);
+        if (id == null) {
+            throw new IllegalStateException("No prompt template bundled for: " + name);
+        }
+        return id;
+    }
+
+    /**
+     * Render a template; absent slots drop their sections
+     */
+    public String render(String templateId, Map<String, String> slots) {
+        return load(templateId).render(slots);
+    }
+
+    /**
+     * Rebuild the exact prompt of an audit row from its template id and stored slot values
+     */
+    public String rebuild(String templateId, String paramsJson) {
+        try {
+            Map<String, String> slots = paramsJson == null
+                    ? Map.of()
+                    : objectMapper.readValue(paramsJson, new TypeReference<Map<String, String>>() {});
+            return render(templateId, slots);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable prompt parameters for template " + templateId, e);
+        }
+    }
+
+    /**
+     * Slot values as the compact JSON stored in recipe_generations.prompt_params
+     */
+    public String toParamsJson(Map<String, String> slots) {
+        try {
+            return objectMapper.writeValueAsString(slots);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize prompt parameters", e);
+        }
+    }
+
+    private PromptTemplate load(String templateId) {
+        return templates.computeIfAbsent(templateId, id -> {
+            List<String> rows = jdbcTemplate.queryForList(
+                    "SELECT template FROM prompt_templates WHERE id = ?", String.class, id);
+            if (rows.isEmpty()) {
+                throw new ResourceNotFoundException("Prompt template", id);
+            }
+            return PromptTemplate.compile(id, rows.get(0));
+        });
+    }
+
+    private static String idOf(String name, int version) {
+        return name + "@" + version;
+    }
+
+    /**
+     * Template text with the file's final newline removed (editors add one; prompts must not change because of it)
+     */
+    private static String read(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return text.endsWith("\n") ? text.substring(0, text.length() - 1) : text;
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Types;
+import java.util.HexFormat;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.masterchef.masterchef_backend.config.RecipeBodyProperties;
+import com.masterchef.masterchef_backend.models.RecipeBody;
+import com.masterchef.masterchef_backend.repository.RecipeBodyRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Content-addressed storage for recipe bodies (recipe_bodies)
+ *
+ * Design:
+ * A body is hashed (SHA-256 over instructions|ingredients|nutritionInfo) and inserted only if absent,
+ * so every recipe generated from the same content - typically LLM cache hits - shares one row
+ * Bodies are immutable; editing a recipe means interning the new content and repointing that recipe
+ * Unreferenced bodies are collected in batches after a grace period
+ */
+@Slf4j
+@Service
+public class RecipeBodyService {
+
+    // The no-op DO UPDATE locks an existing row until the recipe referencing it commits, so the orphan
+    // collector cannot delete it in between; xmax = 0 only on a freshly inserted row
+    private static final String INTERN_SQL = "INSERT INTO recipe_bodies "
+            + "(body_hash, cache_key, instructions, ingredients, nutrition_info) "
+            + "VALUES (?, ?, CAST(? AS JSONB), CAST(? AS JSONB), CAST(? AS JSONB)) "
+            + "ON CONFLICT (body_hash) DO UPDATE SET body_hash = EXCLUDED.body_hash "
+            + "RETURNING (xmax = 0) AS inserted";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RecipeBodyRepository bodyRepository;
+    private final RecipeBodyProperties properties;
+    private final Counter sharedCounter;
+    private final Counter storedCounter;
+
+    public RecipeBodyService(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            RecipeBodyRepository bodyRepository,
+            RecipeBodyProperties properties,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.bodyRepository = bodyRepository;
+        this.properties = properties;
+
+        this.sharedCounter = Counter.builder("recipes.bodies.interned")
+                .description("Recipe bodies saved, by whether identical content already existed")
+                .tag("result", "shared")
+                .register(meterRegistry);
+
+        this.storedCounter = Counter.builder("recipes.bodies.interned")
+                .description("Recipe bodies saved, by whether identical content already existed")
+                .tag("result", "stored")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Store a body if its content is new; returns it with its hash set
+     * Must run in the caller's transaction: the body row stays locked until the recipe that references it commits
+     */
+    public RecipeBody intern(RecipeBody body, String cacheKey) {
+        String hash = hashOf(body);
+
+        Boolean inserted = jdbcTemplate.queryForObject(INTERN_SQL, Boolean.class,
+                hash,
+                new SqlParameterValue(Types.VARCHAR, cacheKey),
+                new SqlParameterValue(Types.VARCHAR, body.getInstructions()),
+                new SqlParameterValue(Types.VARCHAR, body.getIngredients()),
+                new SqlParameterValue(Types.VARCHAR, body.getNutritionInfo()));
+
+        if (Boolean.TRUE.equals(inserted)) {
+            storedCounter.increment();
+        } else {
+            sharedCounter.increment();
+        }
+
+        body.setBodyHash(hash);
+        if (body.getCacheKey() == null) {
+            body.setCacheKey(cacheKey);
+        }
+        return body;
+    }
+
+    static String hashOf(RecipeBody body) {
+        String canonical = String.valueOf(body.getInstructions()) + "|"
+                + body.getIngredients() + "|"
+                + body.getNutritionInfo();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Delete bodies no recipe references any more (deleted recipes, edited copies)
+     */
+    @Scheduled(fixedDelayString = "${recipes.bodies.orphan-gc-interval-ms:3600000}")
+    public void collectOrphans() {
+        long graceSeconds = properties.getOrphanGrace().toSeconds();
+        int batchSize = properties.getOrphanBatchSize();
+        int total = 0;
+
+        try {
+            int deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> bodyRepository.deleteOrphans(graceSeconds, batchSize));
+                total += deleted;
+            } while (deleted >= batchSize);
+        } catch (Exception e) {
+            // A recipe claimed a body after the orphan check (it waited on intern's row lock): the delete
+            // fails on the FK and rolls back, the next run picks up the rest
+            log.warn("Orphaned recipe body collection stopped: {}", e.getMessage());
+        }
+
+        if (total > 0) {
+            log.info("Collected {} orphaned recipe bodies", total);
+        }
+    }
+
+}
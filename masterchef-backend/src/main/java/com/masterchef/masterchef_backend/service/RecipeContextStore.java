@@ -0,0 +1,105 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+import com.masterchef.masterchef_backend.config.RecipeRefinementProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded LRU store of the Ollama context (token array) returned with each fresh generation
+ *
+ * Refinements send it back with a short delta prompt, so the model continues from the recipe it just wrote
+ * instead of re-reading the full prompt plus the previous recipe.
+ *
+ * Design:
+ * Keyed by recipe id; the owner is kept with the tokens so a context is only served to its owner
+ * Contexts are model specific (token ids), so the model that produced one is stored with it
+ * Entries expire after the TTL; contexts longer than max-context-tokens are not stored
+ * Node local: a refinement served by another node (or after a restart) falls back to the full prompt
+ */
+@Component
+public class RecipeContextStore {
+
+    /**
+     * Context of one generation and how it was produced
+     */
+    public record StoredContext(UUID ownerId, String model, PromptCompactionService.Variant variant,
+            int[] tokens, long expiresAtNanos) {
+    }
+
+    private final RecipeRefinementProperties properties;
+    private final Map<UUID, StoredContext> entries;
+
+    public RecipeContextStore(RecipeRefinementProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+
+        int maxEntries = Math.max(0, properties.getMaxEntries());
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, StoredContext> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        Gauge.builder("recipes.refine.contexts", this, RecipeContextStore::size)
+                .description("Generation contexts currently stored for refinement")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Store the context a generation returned (ignored when disabled, absent or too long)
+     */
+    public void put(UUID recipeId, UUID ownerId, String model, PromptCompactionService.Variant variant, int[] tokens) {
+        if (!properties.isContextEnabled() || tokens == null || tokens.length == 0
+                || tokens.length > properties.getMaxContextTokens()) {
+            return;
+        }
+
+        StoredContext context = new StoredContext(ownerId, model, variant, tokens,
+                System.nanoTime() + properties.getTtl().toNanos());
+        synchronized (entries) {
+            entries.put(recipeId, context);
+        }
+    }
+
+    /**
+     * Live context of a recipe owned by the user, or null
+     */
+    public StoredContext get(UUID recipeId, UUID ownerId) {
+        if (!properties.isContextEnabled()) {
+            return null;
+        }
+
+        StoredContext context;
+        synchronized (entries) {
+            context = entries.get(recipeId);
+            if (context != null && context.expiresAtNanos() - System.nanoTime() <= 0) {
+                entries.remove(recipeId);
+                context = null;
+            }
+        }
+        return context != null && context.ownerId().equals(ownerId) ? context : null;
+    }
+
+    /**
+     * Drop a recipe's context after the recipe was deleted
+     */
+    public void invalidate(UUID recipeId) {
+        synchronized (entries) {
+            entries.remove(recipeId);
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.masterchef.masterchef_backend.dto.LlmRecipeOutput;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * JSON schema of the recipe the model must return, generated from LlmRecipeOutput
+ *
+ * Sent as Ollama's "format" so generation is constrained to the schema (one schema per prompt variant:
+ * the compact variant uses its short keys), and used to validate every fresh output after parsing
+ * Violations are counted per model: llm.output.schema{model, result=valid|invalid|unparseable}
+ */
+@Component
+public class RecipeOutputSchema {
+
+    private static final int MAX_VIOLATIONS = 10;
+
+    private final Map<String, Object> fullSchema;
+    private final Map<String, Object> compactSchema;
+    private final MeterRegistry meterRegistry;
+
+    public RecipeOutputSchema(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.fullSchema = objectSchema(LlmRecipeOutput.class, "", false);
+        this.compactSchema = objectSchema(LlmRecipeOutput.class, "", true);
+    }
+
+    /**
+     * Schema for the keys the given prompt variant asks for
+     */
+    public Map<String, Object> schemaFor(PromptCompactionService.Variant variant) {
+        return variant == PromptCompactionService.Variant.COMPACT ? compactSchema : fullSchema;
+    }
+
+    /**
+     * Violations of the full-key schema (compact output must be expanded first); empty when valid
+     */
+    public List<String> validate(JsonNode root) {
+        List<String> violations = new ArrayList<>();
+        check(root, fullSchema, "$", violations);
+        return violations;
+    }
+
+    /**
+     * Count one fresh output for its model; root is null when the output was not JSON at all
+     */
+    public void recordOutcome(String model, JsonNode root, List<String> violations) {
+        String result = root == null ? "unparseable" : violations.isEmpty() ? "valid" : "invalid";
+        Counter.builder("llm.output.schema")
+                .description("Fresh LLM outputs by model and whether they matched the recipe schema")
+                .tag("model", model != null ? model : "unknown")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void check(JsonNode node, Map<String, Object> schema, String path, List<String> violations) {
+        if (violations.size() >= MAX_VIOLATIONS) {
+            return;
+        }
+
+        String type = (String) schema.get("type");
+        boolean matches = switch (type) {
+            case "object" -> node.isObject();
+            case "array" -> node.isArray();
+            case "string" -> node.isTextual();
+            case "integer" -> node.isIntegralNumber() || (node.isNumber() && node.canConvertToExactIntegral());
+            case "number" -> node.isNumber();
+            default -> true;
+        };
+        if (!matches) {
+            violations.add(path + ": expected " + type);
+            return;
+        }
+
+        if (node.isObject()) {
+            Map<String, Object> properties = (Map<String, Object>) schema.get("properties");
+            for (String required : (List<String>) schema.get("required")) {
+                JsonNode child = node.get(required);
+                if (child == null || child.isNull()) {
+                    violations.add(path + "." + required + ": missing");
+                } else {
+                    check(child, (Map<String, Object>) properties.get(required), path + "." + required, violations);
+                }
+            }
+        } else if (node.isArray()) {
+            Map<String, Object> items = (Map<String, Object>) schema.get("items");
+            for (int i = 0; i < node.size(); i++) {
+                check(node.get(i), items, path + "[" + i + "]", violations);
+            }
+        }
+    }
+
+    /**
+     * Object schema from a record: every component is a required property
+     * Scope is the enclosing property name ("" at the top level), used to look up compact keys
+     */
+    private static Map<String, Object> objectSchema(Class<?> recordType, String scope, boolean compactKeys) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (RecordComponent component : recordType.getRecordComponents()) {
+            String key = compactKeys ? PromptCompactionService.shortKey(scope, component.getName()) : component.getName();
+            properties.put(key, typeSchema(component.getGenericType(), component.getName(), compactKeys));
+        }
+
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "object");
+        schema.put("properties", Collections.unmodifiableMap(properties));
+        schema.put("required", List.copyOf(properties.keySet()));
+        return Collections.unmodifiableMap(schema);
+    }
+
+    private static Map<String, Object> typeSchema(Type type, String name, boolean compactKeys) {
+        if (type instanceof ParameterizedType parameterized && parameterized.getRawType() == List.class) {
+            return Map.of("type", "array", "items", typeSchema(parameterized.getActualTypeArguments()[0], name, compactKeys));
+        }
+        if (type == String.class) {
+            return Map.of("type", "string");
+        }
+        if (type == Integer.class || type == int.class || type == Long.class || type == long.class) {
+            return Map.of("type", "integer");
+        }
+        if (type == Double.class || type == double.class) {
+            return Map.of("type", "number");
+        }
+        if (type instanceof Class<?> nested && nested.isRecord()) {
+            return objectSchema(nested, name, compactKeys);
+        }
+        throw new IllegalStateException("Unsupported type in recipe output schema: " + type);
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.masterchef.masterchef_backend.config.RecipeResponseCacheProperties;
+import com.masterchef.masterchef_backend.dto.RecipeResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded LRU cache of serialized recipe detail responses
+ *
+ * Recipes are effectively immutable after generation, so GET /api/v1/recipes/{id}
+ * is served from pre-serialized (and pre-gzipped) bytes instead of a row read plus
+ * Jackson on every view.
+ *
+ * Design:
+ * Keyed by recipe id; each entry carries its version (strong ETag from id + updated_at)
+ * Entries are invalidated on delete/update on this node and expire after the TTL
+ * (which bounds staleness for changes made on other nodes)
+ * The owner id is kept with the bytes so ownership is still enforced on a hit
+ */
+@Slf4j
+@Component
+public class RecipeResponseCache {
+
+    /**
+     * Immutable serialized response; gzip is null when the body is too small to bother
+     */
+    public record CachedRecipe(UUID ownerId, String etag, byte[] json, byte[] gzip, long expiresAtNanos) {
+
+        /**
+         * ETag of the gzip variant: a different content coding is a different representation,
+         * so it must not share the strong ETag of the identity body
+         */
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+    }
+
+    private final RecipeResponseCacheProperties properties;
+    private final Map<UUID, CachedRecipe> entries;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    public RecipeResponseCache(RecipeResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+
+        int maxEntries = Math.max(0, properties.getMaxEntries());
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedRecipe> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        this.hitCounter = Counter.builder("recipes.response.cache")
+                .description("Recipe detail reads served from the serialized response cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+
+        this.missCounter = Counter.builder("recipes.response.cache")
+                .description("Recipe detail reads served from the serialized response cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+
+        Gauge.builder("recipes.response.cache.size", this, RecipeResponseCache::size)
+                .description("Serialized recipe responses currently cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Strong ETag for a recipe version
+     */
+    public static String etagOf(UUID recipeId, LocalDateTime updatedAt) {
+        long version = updatedAt == null ? 0L
+                : updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + updatedAt.getNano() / 1_000;
+        return "\"" + recipeId + "-" + Long.toHexString(version) + "\"";
+    }
+
+    /**
+     * Get a live cached response, or null
+     */
+    public CachedRecipe get(UUID recipeId) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+
+        CachedRecipe cached;
+        synchronized (entries) {
+            cached = entries.get(recipeId);
+            if (cached != null && cached.expiresAtNanos() - System.nanoTime() <= 0) {
+                entries.remove(recipeId);
+                cached = null;
+            }
+        }
+
+        if (cached == null) {
+            missCounter.increment();
+        } else {
+            hitCounter.increment();
+        }
+        return cached;
+    }
+
+    /**
+     * Serialize (and compress) a response once; cached when the cache is enabled
+     */
+    public CachedRecipe put(UUID ownerId, LocalDateTime updatedAt, RecipeResponse response) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize recipe " + response.getId(), e);
+        }
+
+        byte[] gzip = json.length >= properties.getGzipMinBytes() ? gzip(json) : null;
+
+        CachedRecipe cached = new CachedRecipe(
+                ownerId,
+                etagOf(response.getId(), updatedAt),
+                json,
+                gzip,
+                System.nanoTime() + properties.getTtl().toNanos());
+
+        if (properties.isEnabled()) {
+            synchronized (entries) {
+                entries.put(response.getId(), cached);
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Drop a recipe after it was deleted or updated
+     */
+    public void invalidate(UUID recipeId) {
+        synchronized (entries) {
+            entries.remove(recipeId);
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 3 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -2,27 +2,37 @@ package com.masterchef.masterchef_backend.service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import com.masterchef.masterchef_backend.dto.LlmRequest;
 import com.masterchef.masterchef_backend.dto.LlmResponse;
+import com.masterchef.masterchef_backend.dto.RecipeRefineRequest;
 import com.masterchef.masterchef_backend.dto.RecipeRequest;
 import com.masterchef.masterchef_backend.dto.RecipeResponse;
+import com.masterchef.masterchef_backend.exception.ResourceNotFoundException;
 import com.masterchef.masterchef_backend.models.Recipe;
-import com.masterchef.masterchef_backend.models.RecipeGeneration;
+import com.masterchef.masterchef_backend.models.RecipeBody;
 import com.masterchef.masterchef_backend.models.User;
-import com.masterchef.masterchef_backend.repository.RecipeGenerationRepository;
 import com.masterchef.masterchef_backend.repository.RecipeRepository;
 import com.masterchef.masterchef_backend.repository.UserRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,20 +41,41 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class RecipeService {
 
+    private static final String REFINE_TEMPLATE = "recipe-refine";
+    private static final String REFINE_FULL_TEMPLATE = "recipe-refine-full";
+
     private final LlmOrchestrator llmOrchestrator;
     private final RecipeRepository recipeRepository;
-    private final RecipeGenerationRepository recipeGenerationRepository;
     private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final GenerationAuditWriter auditWriter;
+    private final UserStatsService userStatsService;
+    private final RecipeBodyService recipeBodyService;
+    private final PromptTemplateService promptTemplateService;
+    private final PromptCompactionService promptCompactionService;
+    private final RecipeOutputSchema recipeOutputSchema;
+    private final JsonRepairEngine jsonRepairEngine;
+    private final ModelRouter modelRouter;
+    private final DietaryConstraintChecker dietaryConstraintChecker;
+    private final RecipeContextStore recipeContextStore;
+    private final MeterRegistry meterRegistry;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
      * Generate a recipe based on ingredients and preferences
+     * 
+     * Deliberately NOT @Transactional: the LLM call can take minutes and must not
+     * pin a pooled JDBC connection. The flow runs in three phases:
+     * 1. Read: load the user (short, connection released immediately)
+     * 2. Generate: prompt (rendered from a versioned template) + LLM call on the routed model tier + parsing
+     *    (malformed JSON is repaired locally; unusable output escalates to a larger tier), outside any transaction
+     * 3. Write: persist the recipe (and its shared body, if new) in one short transaction; the audit record goes to
+     *    GenerationAuditWriter and is batched into recipe_generations in the background
      */
-    @Transactional
     public RecipeResponse generateRecipe(RecipeRequest request, UUID userId) {
         log.info("Generating recipe for user: {}, ingredients: {}", userId, request.getIngredients());
 
-        // Load user
+        // Phase 1: Read - load user (fails fast before spending LLM time)
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -52,57 +83,364 @@ public class RecipeService {
         List<String> normalizedIngredients = normalizeIngredients(request.getIngredients());
         log.debug("Normalized ingredients: {}", normalizedIngredients);
 
-        // Build structured prompt
-        String prompt = buildPrompt(normalizedIngredients, request);
+        // Build structured prompt from the active versioned template (full or compact, see PromptCompactionService)
+        PromptCompactionService.Variant variant = promptCompactionService.choose();
+        String templateId = promptTemplateService.activeId(variant.templateName());
+        Map<String, String> promptSlots = buildPromptSlots(normalizedIngredients, request);
+        String prompt = promptTemplateService.render(templateId, promptSlots);
         log.debug("Generated prompt length: {} characters", prompt.length());
 
+        // Starting model tier from the routing rules (small model for simple requests)
+        ModelRouter.Tier tier = modelRouter.route(normalizedIngredients, request);
+
         // Call LLM orchestrator (handles caching automatically)
         long startTime = System.currentTimeMillis();
         LlmRequest llmRequest = LlmRequest.builder()
                 .prompt(prompt)
-                .model("mistral")
+                .templateId(templateId)
+                .format(recipeOutputSchema.schemaFor(variant))
+                .model(tier.model())
                 .temperature(0.7)
                 .userId(userId.toString())
+                .plan(user.getPlan())
                 .ingredients(normalizedIngredients)
+                .rateLimitCharged(true)
                 .build();
 
-        LlmResponse llmResponse = llmOrchestrator.generateWithCache(llmRequest);
+        // Phase 2: Generate - no transaction or connection held while waiting on the LLM
+        // Parsing (with local JSON repair) is CPU only and also runs outside the transaction
+        // The user request is charged against the rate limit once; escalations and regenerations are not
+        LlmResponse rateLimited = llmOrchestrator.chargeRateLimit(userId.toString(), user.getPlan());
+        Generation generation = rateLimited != null
+                ? new Generation(rateLimited, null)
+                : generate(llmRequest, tier, variant, request.getDietaryPreferences(), true);
+        LlmResponse llmResponse = generation.response();
         long latencyMs = System.currentTimeMillis() - startTime;
 
-        // Save generation audit record
-        RecipeGeneration generation = RecipeGeneration.builder()
-                .user(user)
-                .ingredients(normalizedIngredients)
-                .dietaryPreferences(request.getDietaryPreferences())
-                .prompt(prompt)
-                .rawResponse(llmResponse.getContent())
-                .modelUsed(llmResponse.getModel())
-                .tokensUsed(llmResponse.getTokensUsed())
-                .costCents(llmResponse.getCostCents())
-                .cached(llmResponse.isCached())
-                .latencyMs(latencyMs)
-                .status(llmResponse.getStatus())
-                .errorMessage(llmResponse.getErrorMessage())
-                .build();
+        Recipe parsedRecipe = generation.output() != null
+                ? buildRecipe(generation.output().root(), llmResponse.getContent(), normalizedIngredients)
+                : null;
+
+        // Phase 3: Write - the recipe in one short transaction
+        Recipe recipe = parsedRecipe == null ? null : saveRecipe(parsedRecipe, userId, llmResponse.getCacheKey());
 
-        generation = recipeGenerationRepository.save(generation);
-        log.info("Recipe generation saved: id={}, status={}, latency={}ms, cached={}", 
-                generation.getId(), generation.getStatus(), latencyMs, llmResponse.isCached());
+        // Generation audit record (written for failures too), persisted write-behind off the request path
+        recordAudit(userId, normalizedIngredients, request.getDietaryPreferences(), templateId, promptSlots,
+                llmResponse, latencyMs);
 
         // Check if LLM generation was successful
-        if (!"SUCCESS".equals(llmResponse.getStatus()) || llmResponse.getContent() == null) {
+        if (recipe == null) {
             throw new RuntimeException("LLM generation failed: " + llmResponse.getErrorMessage());
         }
 
-        // Parse LLM response into structured recipe
-        Recipe recipe = parseRecipeFromLlm(llmResponse.getContent(), user, normalizedIngredients);
-
-        // Save recipe
-        recipe = recipeRepository.save(recipe);
         log.info("Recipe saved: id={}, title={}", recipe.getId(), recipe.getTitle());
+        storeContext(recipe, userId, variant, llmResponse);
 
         // Build response
-        return buildRecipeResponse(recipe, llmResponse, latencyMs);
+        return buildRecipeResponse(recipe, llmResponse, latencyMs, null, null);
+    }
+
+    /**
+     * Refine one of the user's recipes with a follow-up instruction ("make it vegetarian"), saved as a new recipe
+     *
+     * While the Ollama context of the recipe's generation is still stored (RecipeContextStore), only the
+     * instruction is sent on top of it, to the same model: the model continues from the recipe it wrote
+     * instead of re-evaluating the full prompt. Otherwise (context expired or evicted, held by another node,
+     * recipe served from the LLM cache, or the delta output is unusable) the full refinement prompt carries the
+     * previous recipe as JSON and is routed and escalated like a constrained generation
+     * Same phases as generateRecipe: no transaction is held during the LLM call
+     */
+    public RecipeResponse refineRecipe(UUID recipeId, RecipeRefineRequest request, UUID userId) {
+        log.info("Refining recipe {} for user: {}, instruction: {}", recipeId, userId, request.getInstruction());
+
+        // Phase 1: Read - user and the recipe being refined (ownership checked before any LLM time)
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Recipe base = recipeRepository.findWithBodyById(recipeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Recipe", recipeId.toString()));
+        if (!base.getUser().getId().equals(userId)) {
+            throw new ResourceNotFoundException("Recipe", recipeId.toString());
+        }
+
+        String instruction = request.getInstruction().trim();
+        List<String> ingredients = new ArrayList<>(base.getIngredientsUsed());
+        long startTime = System.currentTimeMillis();
+
+        // Phase 2: Generate - delta on the stored context first, full prompt as the fallback
+        PromptCompactionService.Variant variant = PromptCompactionService.Variant.FULL;
+        String templateId = null;
+        Map<String, String> promptSlots = null;
+        Generation generation = null;
+        boolean contextReused = false;
+
+        // One rate-limit charge covers the delta attempt and the full-prompt fallback
+        LlmResponse rateLimited = llmOrchestrator.chargeRateLimit(userId.toString(), user.getPlan());
+        if (rateLimited != null) {
+            generation = new Generation(rateLimited, null);
+        }
+
+        RecipeContextStore.StoredContext context = generation == null ? recipeContextStore.get(recipeId, userId) : null;
+        if (context != null) {
+            variant = context.variant();
+            templateId = promptTemplateService.activeId(REFINE_TEMPLATE);
+            promptSlots = new LinkedHashMap<>();
+            promptSlots.put("instruction", instruction);
+
+            LlmRequest llmRequest = LlmRequest.builder()
+                    .prompt(promptTemplateService.render(templateId, promptSlots))
+                    .templateId(templateId)
+                    .context(context.tokens())
+                    .format(recipeOutputSchema.schemaFor(variant))
+                    .model(context.model())
+                    .temperature(0.7)
+                    .userId(userId.toString())
+                    .plan(user.getPlan())
+                    .ingredients(ingredients)
+                    .rateLimitCharged(true)
+                    .build();
+
+            LlmResponse attempt = llmOrchestrator.generateWithCache(llmRequest);
+            if (isSuccessful(attempt)) {
+                ParsedOutput parsed = readRecipeJson(attempt, variant, List.of(), false);
+                if (parsed.problem() == null) {
+                    generation = new Generation(attempt, parsed);
+                    contextReused = true;
+                } else {
+                    log.warn("Refinement on stored context unusable ({}), falling back to the full prompt: recipe={}",
+                            parsed.problem(), recipeId);
+                }
+            } else if (!isEscalatable(attempt)) {
+                // No capacity: the full prompt would be rejected the same way
+                generation = new Generation(attempt, null);
+            }
+        }
+
+        if (generation == null) {
+            variant = PromptCompactionService.Variant.FULL;
+            templateId = promptTemplateService.activeId(REFINE_FULL_TEMPLATE);
+            promptSlots = new LinkedHashMap<>();
+            promptSlots.put("recipe", previousRecipeJson(base));
+            promptSlots.put("instruction", instruction);
+
+            ModelRouter.Tier tier = modelRouter.route(ingredients, true);
+            LlmRequest llmRequest = LlmRequest.builder()
+                    .prompt(promptTemplateService.render(templateId, promptSlots))
+                    .templateId(templateId)
+                    .format(recipeOutputSchema.schemaFor(variant))
+                    .model(tier.model())
+                    .temperature(0.7)
+                    .userId(userId.toString())
+                    .plan(user.getPlan())
+                    .ingredients(ingredients)
+                    .rateLimitCharged(true)
+                    .build();
+
+            generation = generate(llmRequest, tier, variant, List.of(), false);
+        }
+
+        LlmResponse llmResponse = generation.response();
+        long latencyMs = System.currentTimeMillis() - startTime;
+
+        Timer.builder("recipes.refine.latency")
+                .description("Recipe refinement latency, by whether the stored context was reused")
+                .tag("mode", contextReused ? "context" : "full")
+                .register(meterRegistry)
+                .record(latencyMs, TimeUnit.MILLISECONDS);
+
+        Recipe parsedRecipe = generation.output() != null
+                ? buildRecipe(generation.output().root(), llmResponse.getContent(), ingredients)
+                : null;
+
+        // Phase 3: Write
+        Recipe recipe = parsedRecipe == null ? null : saveRecipe(parsedRecipe, userId, llmResponse.getCacheKey());
+        recordAudit(userId, ingredients, null, templateId, promptSlots, llmResponse, latencyMs);
+
+        if (recipe == null) {
+            throw new RuntimeException("LLM refinement failed: " + llmResponse.getErrorMessage());
+        }
+
+        log.info("Recipe refined: id={}, from={}, contextReused={}, latency={}ms",
+                recipe.getId(), recipeId, contextReused, latencyMs);
+        storeContext(recipe, userId, variant, llmResponse);
+
+        return buildRecipeResponse(recipe, llmResponse, latencyMs, recipeId, contextReused);
+    }
+
+    /**
+     * Delete a recipe and move the owner's saved-recipe counter in the same transaction
+     */
+    public void deleteRecipe(Recipe recipe) {
+        transactionTemplate.executeWithoutResult(status -> {
+            recipeRepository.delete(recipe);
+            if (Boolean.TRUE.equals(recipe.getIsSaved())) {
+                userStatsService.adjustRecipesSaved(recipe.getUser().getId(), -1);
+            }
+        });
+        recipeContextStore.invalidate(recipe.getId());
+    }
+
+    /**
+     * Outcome of a generation: the response kept and its parsed output (null when the LLM call itself failed)
+     */
+    private record Generation(LlmResponse response, ParsedOutput output) {
+    }
+
+    /**
+     * Call the LLM on the routed tier, escalating on unusable output
+     *
+     * Unusable output or a failed generation escalates to the next model tier; on the last tier,
+     * unrepairable output is regenerated once, bypassing (and replacing) the cache entry that held it
+     * The caller charges the rate limit before and marks the request rateLimitCharged, so attempts are not charged
+     */
+    private Generation generate(LlmRequest llmRequest, ModelRouter.Tier tier, PromptCompactionService.Variant variant,
+            List<String> dietaryPreferences, boolean abSample) {
+        LlmResponse generated = null;
+        ParsedOutput output = null;
+        boolean regenerated = false;
+
+        while (true) {
+            long attemptStart = System.currentTimeMillis();
+            LlmResponse attempt = llmOrchestrator.generateWithCache(llmRequest);
+            modelRouter.recordLatency(tier, System.currentTimeMillis() - attemptStart);
+
+            ModelRouter.EscalationReason problem;
+            if (isSuccessful(attempt)) {
+                ParsedOutput parsed = readRecipeJson(attempt, variant, dietaryPreferences, abSample);
+                // A later attempt wins unless it is unparseable and an earlier one was not
+                if (output == null || output.root() == null || parsed.root() != null) {
+                    generated = attempt;
+                    output = parsed;
+                }
+                problem = parsed.problem();
+            } else {
+                if (generated == null) {
+                    generated = attempt;
+                }
+                problem = isEscalatable(attempt) ? ModelRouter.EscalationReason.GENERATION_FAILED : null;
+            }
+
+            if (problem == null) {
+                break;
+            }
+
+            ModelRouter.Tier next = modelRouter.escalate(tier, problem);
+            if (next != null) {
+                tier = next;
+                llmRequest.setModel(next.model());
+            } else if (problem == ModelRouter.EscalationReason.UNPARSEABLE && !regenerated) {
+                log.warn("LLM output unusable after repair, regenerating: model={}", tier.model());
+                regenerated = true;
+                llmRequest.setSkipCache(true);
+            } else {
+                break;
+            }
+        }
+
+        return new Generation(generated, output);
+    }
+
+    /**
+     * Persist a parsed recipe (and its shared body, if new) in one short transaction
+     */
+    private Recipe saveRecipe(Recipe parsedRecipe, UUID userId, String cacheKey) {
+        return transactionTemplate.execute(status -> {
+            parsedRecipe.setUser(userRepository.getReferenceById(userId));
+            parsedRecipe.setBody(recipeBodyService.intern(parsedRecipe.getBody(), cacheKey));
+            Recipe saved = recipeRepository.save(parsedRecipe);
+            if (Boolean.TRUE.equals(saved.getIsSaved())) {
+                userStatsService.adjustRecipesSaved(userId, 1);
+            }
+            return saved;
+        });
+    }
+
+    /**
+     * Hand the generation audit record to the write-behind writer
+     * Stores the template reference instead of the prompt, and for cache hits the cache key instead of the response
+     */
+    private void recordAudit(UUID userId, List<String> ingredients, List<String> dietaryPreferences,
+            String templateId, Map<String, String> promptSlots, LlmResponse llmResponse, long latencyMs) {
+        GenerationAuditRecord audit = new GenerationAuditRecord(
+                UUID.randomUUID(),
+                userId,
+                ingredients,
+                dietaryPreferences,
+                null,
+                templateId,
+                promptTemplateService.toParamsJson(promptSlots),
+                llmResponse.isCached() ? null : llmResponse.getContent(),
+                llmResponse.getCacheKey(),
+                llmResponse.isCached() ? LlmCacheService.responseHash(llmResponse.getContent()) : null,
+                llmResponse.getModel(),
+                llmResponse.getTokensUsed(),
+                llmResponse.getCostCents(),
+                llmResponse.isCached(),
+                latencyMs,
+                llmResponse.getStatus(),
+                llmResponse.getErrorMessage(),
+                LocalDateTime.now());
+        auditWriter.record(audit);
+
+        log.info("Recipe generation recorded: id={}, status={}, latency={}ms, cached={}",
+                audit.id(), audit.status(), latencyMs, llmResponse.isCached());
+    }
+
+    /**
+     * Keep the Ollama context of a fresh generation so the recipe can be refined from it
+     */
+    private void storeContext(Recipe recipe, UUID userId, PromptCompactionService.Variant variant,
+            LlmResponse llmResponse) {
+        if (!llmResponse.isCached() && llmResponse.getContext() != null) {
+            recipeContextStore.put(recipe.getId(), userId, llmResponse.getModel(), variant, llmResponse.getContext());
+        }
+    }
+
+    /**
+     * The recipe being refined, in the JSON structure the model returns
+     */
+    private String previousRecipeJson(Recipe recipe) {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("title", recipe.getTitle());
+        root.put("description", recipe.getDescription());
+        root.put("prepTime", recipe.getPrepTime());
+        root.put("cookTime", recipe.getCookTime());
+        root.put("difficulty", recipe.getDifficulty());
+        root.put("cuisine", recipe.getCuisine());
+        root.set("instructions", readJsonColumn(recipe.getBody().getInstructions()));
+        root.set("ingredients", readJsonColumn(recipe.getBody().getIngredients()));
+        root.set("nutritionInfo", readJsonColumn(recipe.getBody().getNutritionInfo()));
+        ArrayNode tags = root.putArray("tags");
+        if (recipe.getTags() != null) {
+            recipe.getTags().forEach(tags::add);
+        }
+        return root.toString();
+    }
+
+    private JsonNode readJsonColumn(String json) {
+        if (json == null) {
+            return NullNode.getInstance();
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            return TextNode.valueOf(json);
+        }
+    }
+
+    /**
+     * Fresh generations report SUCCESS, cache hits report CACHE_HIT; both carry usable content
+     */
+    private boolean isSuccessful(LlmResponse llmResponse) {
+        String status = llmResponse.getStatus();
+        return ("SUCCESS".equals(status) || "CACHE_HIT".equals(status)) && llmResponse.getContent() != null;
+    }
+
+    /**
+     * Generation errors worth a larger model; capacity and rate limits are not
+     */
+    private boolean isEscalatable(LlmResponse llmResponse) {
+        String status = llmResponse.getStatus();
+        return "FAILED".equals(status) || "ERROR".equals(status) || "TIMEOUT".equals(status);
     }
 
     /**
@@ -117,145 +455,158 @@ public class RecipeService {
     }
 
     /**
-     * Build structured prompt for LLM
+     * Slot values for the recipe prompt template; absent optional slots drop their sections
+     * (stored as-is in the audit trail so the exact prompt can be rebuilt)
      */
-    private String buildPrompt(List<String> ingredients, RecipeRequest request) {
-        StringBuilder prompt = new StringBuilder();
-
-        prompt.append("You are a professional chef. Create a detailed recipe using ONLY these ingredients:\n");
-        prompt.append(String.join(", ", ingredients));
-        prompt.append("\n\n");
+    private Map<String, String> buildPromptSlots(List<String> ingredients, RecipeRequest request) {
+        Map<String, String> slots = new LinkedHashMap<>();
+        slots.put("ingredients", String.join(", ", ingredients));
 
-        // Add dietary preferences
         if (request.getDietaryPreferences() != null && !request.getDietaryPreferences().isEmpty()) {
-            prompt.append("DIETARY REQUIREMENTS: ");
-            prompt.append(String.join(", ", request.getDietaryPreferences()));
-            prompt.append("\n\n");
+            slots.put("dietaryPreferences", String.join(", ", request.getDietaryPreferences()));
         }
 
-        // Add servings
-        prompt.append("Servings: ").append(request.getServings()).append("\n\n");
+        slots.put("servings", String.valueOf(request.getServings()));
 
-        // Add constraints
         if (request.getDifficulty() != null) {
-            prompt.append("Difficulty level: ").append(request.getDifficulty()).append("\n\n");
+            slots.put("difficulty", request.getDifficulty());
         }
 
         if (request.getMaxTimeMinutes() != null && request.getMaxTimeMinutes() > 0) {
-            prompt.append("Maximum cooking time: ").append(request.getMaxTimeMinutes()).append(" minutes\n\n");
+            slots.put("maxTimeMinutes", String.valueOf(request.getMaxTimeMinutes()));
         }
 
-        // Request structured JSON output
-        prompt.append("Return ONLY a valid JSON object with this EXACT structure:\n");
-        prompt.append("{\n");
-        prompt.append("  \"title\": \"Recipe name\",\n");
-        prompt.append("  \"description\": \"Brief description\",\n");
-        prompt.append("  \"prepTime\": 15,\n");
-        prompt.append("  \"cookTime\": 30,\n");
-        prompt.append("  \"difficulty\": \"easy\",\n");
-        prompt.append("  \"cuisine\": \"Italian\",\n");
-        prompt.append("  \"instructions\": [\"Step 1\", \"Step 2\", \"Step 3\"],\n");
-        prompt.append("  \"ingredients\": [{\"name\": \"chicken\", \"amount\": \"500\", \"unit\": \"g\"}],\n");
-        prompt.append("  \"nutritionInfo\": {\"calories\": 350, \"protein\": 30, \"carbs\": 20, \"fat\": 15},\n");
-        prompt.append("  \"tags\": [\"Quick\", \"Healthy\"]\n");
-        prompt.append("}\n\n");
-        prompt.append("Return ONLY the JSON, no explanations or markdown.");
-
-        return prompt.toString();
+        return slots;
     }
 
     /**
-     * Parse LLM response into Recipe entity
+     * Parsed model output; root is null when unusable, problem is set when the output should be escalated
      */
-    private Recipe parseRecipeFromLlm(String llmResponse, User user, List<String> ingredientsUsed) {
-        try {
-            // Check for null response
-            if (llmResponse == null || llmResponse.trim().isEmpty()) {
-                throw new RuntimeException("LLM returned empty response");
-            }
-            
-            // Clean up potential markdown code blocks
-            String cleanJson = llmResponse.trim();
-            if (cleanJson.startsWith("```json")) {
-                cleanJson = cleanJson.substring(7);
-            }
-            if (cleanJson.startsWith("```")) {
-                cleanJson = cleanJson.substring(3);
-            }
-            if (cleanJson.endsWith("```")) {
-                cleanJson = cleanJson.substring(0, cleanJson.length() - 3);
-            }
-            cleanJson = cleanJson.trim();
-
-            // Parse JSON
-            JsonNode root = objectMapper.readTree(cleanJson);
-
-            // Extract fields
-            String title = root.path("title").asText("Untitled Recipe");
-            String description = root.path("description").asText("");
-            Integer prepTime = root.path("prepTime").asInt(0);
-            Integer cookTime = root.path("cookTime").asInt(0);
-            Integer totalTime = prepTime + cookTime;
-            String difficulty = root.path("difficulty").asText("medium");
-            String cuisine = root.path("cuisine").asText("");
-
-            // Instructions (array to JSON string)
-            String instructions = root.path("instructions").toString();
-
-            // Ingredients (array to JSON string)
-            String ingredients = root.path("ingredients").toString();
-
-            // Nutrition info (object to JSON string)
-            String nutritionInfo = root.path("nutritionInfo").toString();
-
-            // Tags
-            List<String> tags = new ArrayList<>();
-            JsonNode tagsNode = root.path("tags");
-            if (tagsNode.isArray()) {
-                tagsNode.forEach(tag -> tags.add(tag.asText()));
+    private record ParsedOutput(JsonNode root, ModelRouter.EscalationReason problem) {
+    }
+
+    /**
+     * Parse the model output (repaired if malformed, compact keys expanded) and check it
+     * against the recipe schema and the requested dietary preferences
+     * Fresh outputs feed the per-model schema metrics and, for new generations (abSample), the prompt variant's A/B test
+     */
+    private ParsedOutput readRecipeJson(LlmResponse response, PromptCompactionService.Variant variant,
+            List<String> dietaryPreferences, boolean abSample) {
+        String llmResponse = response.getContent();
+
+        // An empty response is as unusable as unrepairable JSON
+        JsonNode parsed = llmResponse == null || llmResponse.isBlank()
+                ? null
+                : jsonRepairEngine.parse(llmResponse, response.getLatencyMs());
+        JsonNode root = parsed != null ? promptCompactionService.expand(variant, parsed) : null;
+
+        List<String> violations = root != null ? recipeOutputSchema.validate(root) : List.of();
+        if (!violations.isEmpty()) {
+            log.warn("LLM output violates the recipe schema: model={}, violations={}", response.getModel(), violations);
+        }
+
+        if (!response.isCached()) {
+            recipeOutputSchema.recordOutcome(response.getModel(), root, violations);
+
+            if (abSample) {
+                boolean valid = root != null && violations.isEmpty();
+                promptCompactionService.recordOutcome(variant, valid, response.getPromptEvalCount(), response.getEvalCount());
             }
+        }
 
-            // Determine servings from request (already validated in request object)
-            Integer servings = 4; // Default from RecipeRequest
+        if (root == null) {
+            return new ParsedOutput(null, ModelRouter.EscalationReason.UNPARSEABLE);
+        }
+        if (!violations.isEmpty()) {
+            return new ParsedOutput(root, ModelRouter.EscalationReason.SCHEMA_VIOLATION);
+        }
 
-            return Recipe.builder()
-                    .user(user)
-                    .title(title)
-                    .description(description)
-                    .prepTime(prepTime)
-                    .cookTime(cookTime)
-                    .totalTime(totalTime)
-                    .servings(servings)
-                    .difficulty(difficulty)
-                    .cuisine(cuisine)
-                    .ingredientsUsed(ingredientsUsed)
-                    .instructions(instructions)
-                    .ingredients(ingredients)
-                    .nutritionInfo(nutritionInfo)
-                    .tags(tags)
-                    .isSaved(true)
-                    .build();
+        List<String> dietaryViolations = dietaryConstraintChecker.violations(dietaryPreferences, root);
+        if (!dietaryViolations.isEmpty()) {
+            log.warn("LLM output breaks dietary preferences: model={}, violations={}", response.getModel(), dietaryViolations);
+            return new ParsedOutput(root, ModelRouter.EscalationReason.DIETARY_VIOLATION);
+        }
 
-        } catch (JsonProcessingException e) {
-            log.error("Failed to parse LLM response as JSON: {}", e.getMessage());
+        return new ParsedOutput(root, null);
+    }
+
+    /**
+     * Build the Recipe entity from parsed output (owner is attached in the write phase)
+     * Without usable JSON the raw text becomes a single-step fallback recipe
+     */
+    private Recipe buildRecipe(JsonNode root, String llmResponse, List<String> ingredientsUsed) {
+        if (root == null) {
             log.debug("Raw LLM response: {}", llmResponse);
 
             // Fallback: create a simple recipe with raw content
             return Recipe.builder()
-                    .user(user)
                     .title("Recipe from Ingredients")
                     .description("Generated recipe (parsing failed)")
                     .ingredientsUsed(ingredientsUsed)
-                    .instructions("[\"" + llmResponse.replace("\"", "\\\"") + "\"]")
+                    .body(RecipeBody.builder()
+                            .instructions(objectMapper.createArrayNode().add(llmResponse).toString())
+                            .build())
                     .isSaved(true)
                     .build();
         }
+
+        // Extract fields
+        String title = root.path("title").asText("Untitled Recipe");
+        String description = root.path("description").asText("");
+        Integer prepTime = root.path("prepTime").asInt(0);
+        Integer cookTime = root.path("cookTime").asInt(0);
+        Integer totalTime = prepTime + cookTime;
+        String difficulty = root.path("difficulty").asText("medium");
+        String cuisine = root.path("cuisine").asText("");
+
+        // Instructions, ingredients, nutrition info (kept as JSON text for the JSONB columns)
+        String instructions = jsonOrNull(root.path("instructions"));
+        String ingredients = jsonOrNull(root.path("ingredients"));
+        String nutritionInfo = jsonOrNull(root.path("nutritionInfo"));
+
+        // Tags
+        List<String> tags = new ArrayList<>();
+        JsonNode tagsNode = root.path("tags");
+        if (tagsNode.isArray()) {
+            tagsNode.forEach(tag -> tags.add(tag.asText()));
+        }
+
+        // Determine servings from request (already validated in request object)
+        Integer servings = 4; // Default from RecipeRequest
+
+        return Recipe.builder()
+                .title(title)
+                .description(description)
+                .prepTime(prepTime)
+                .cookTime(cookTime)
+                .totalTime(totalTime)
+                .servings(servings)
+                .difficulty(difficulty)
+                .cuisine(cuisine)
+                .ingredientsUsed(ingredientsUsed)
+                .body(RecipeBody.builder()
+                        .instructions(instructions)
+                        .ingredients(ingredients)
+                        .nutritionInfo(nutritionInfo)
+                        .build())
+                .tags(tags)
+                .isSaved(true)
+                .build();
+    }
+
+    /**
+     * Serialize a JSON node for a JSONB column; absent or null fields stay SQL NULL
+     * (a missing node would otherwise serialize to an empty, invalid JSON string)
+     */
+    private static String jsonOrNull(JsonNode node) {
+        return node.isMissingNode() || node.isNull() ? null : node.toString();
     }
 
     /**
      * Build RecipeResponse from Recipe entity
      */
-    private RecipeResponse buildRecipeResponse(Recipe recipe, LlmResponse llmResponse, long latencyMs) {
+    private RecipeResponse buildRecipeResponse(Recipe recipe, LlmResponse llmResponse, long latencyMs,
+            UUID refinedFrom, Boolean contextReused) {
         // Build metadata
         RecipeResponse.GenerationMetaData metadata = RecipeResponse.GenerationMetaData.builder()
                 .model(llmResponse.getModel())
@@ -263,6 +614,8 @@ public class RecipeService {
                 .cached(llmResponse.isCached())
                 .latencyMs(latencyMs)
                 .generatedAt(LocalDateTime.now())
+                .refinedFrom(refinedFrom)
+                .contextReused(contextReused)
                 .build();
 
         return RecipeResponse.builder()
@@ -276,9 +629,9 @@ public class RecipeService {
                 .difficulty(recipe.getDifficulty())
                 .cuisine(recipe.getCuisine())
                 .ingredientsUsed(recipe.getIngredientsUsed())
-                .instructions(recipe.getInstructions())
-                .ingredients(recipe.getIngredients())
-                .nutritionInfo(recipe.getNutritionInfo())
+                .instructions(recipe.getBody().getInstructions())
+                .ingredients(recipe.getBody().getIngredients())
+                .nutritionInfo(recipe.getBody().getNutritionInfo())
                 .tags(recipe.getTags())
                 .isSaved(recipe.getIsSaved())
                 .createdAt(recipe.getCreatedAt())
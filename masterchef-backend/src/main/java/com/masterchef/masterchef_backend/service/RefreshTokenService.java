@@ -0,0 +1,115 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.masterchef.masterchef_backend.models.RefreshToken;
+import com.masterchef.masterchef_backend.models.TokenFamilyRevocation;
+import com.masterchef.masterchef_backend.repository.RefreshTokenRepository;
+import com.masterchef.masterchef_backend.security.JwtTokenProvider;
+import com.masterchef.masterchef_backend.security.TokenRevocationService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Refresh token rotation backed by the refresh_tokens table
+ *
+ * Lifecycle:
+ * Login/registration starts a new family with its first token
+ * Each refresh locks the presented token, marks it used and issues its successor
+ * Presenting an already used token means it was replayed: the whole family is revoked
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final JwtTokenProvider jwtTokenProvider;
+
+    /**
+     * Outcome of a rotation attempt; newTokenId is set only when ROTATED
+     */
+    public record Rotation(Status status, UUID newTokenId) {
+
+        public enum Status {
+            ROTATED,
+            INVALID,
+            REUSED
+        }
+    }
+
+    /**
+     * Record the first refresh token of a new login session
+     */
+    @Transactional
+    public UUID startFamily(UUID userId, UUID familyId) {
+        return store(userId, familyId, null);
+    }
+
+    /**
+     * Consume a refresh token and issue its successor in the same family
+     */
+    @Transactional
+    public Rotation rotate(UUID tokenId, UUID familyId, UUID userId) {
+        RefreshToken current = refreshTokenRepository.lockByJti(tokenId).orElse(null);
+
+        if (current == null
+                || !current.getFamilyId().equals(familyId)
+                || !current.getUserId().equals(userId)
+                || current.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return new Rotation(Rotation.Status.INVALID, null);
+        }
+
+        if (current.getUsedAt() != null) {
+            // Committed with this transaction so the revocation survives the rejected request
+            log.warn("Refresh token reuse detected: jti={}, family={}, user={}", tokenId, familyId, userId);
+            tokenRevocationService.revokeFamily(familyId, userId, TokenFamilyRevocation.REUSE);
+            return new Rotation(Rotation.Status.REUSED, null);
+        }
+
+        current.setUsedAt(LocalDateTime.now());
+        return new Rotation(Rotation.Status.ROTATED, store(userId, familyId, tokenId));
+    }
+
+    /**
+     * End a login session: its refresh and access tokens stop working on every node
+     */
+    @Transactional
+    public void revokeFamily(UUID familyId, UUID userId) {
+        tokenRevocationService.revokeFamily(familyId, userId, TokenFamilyRevocation.LOGOUT);
+    }
+
+    private UUID store(UUID userId, UUID familyId, UUID parentJti) {
+        RefreshToken token = RefreshToken.builder()
+                .jti(UUID.randomUUID())
+                .familyId(familyId)
+                .userId(userId)
+                .parentJti(parentJti)
+                .expiresAt(LocalDateTime.now().plus(Duration.ofMillis(jwtTokenProvider.getRefreshTokenExpirationMs())))
+                .build();
+
+        refreshTokenRepository.save(token);
+        return token.getJti();
+    }
+
+    /**
+     * Delete expired refresh tokens
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh-token-prune-interval-ms:3600000}")
+    @Transactional
+    public void pruneExpired() {
+        int deleted = refreshTokenRepository.deleteExpired();
+        if (deleted > 0) {
+            log.info("Pruned {} expired refresh tokens", deleted);
+        }
+    }
+
+}
@@ -1,12 +1,16 @@
 package com.masterchef.masterchef_backend.service;
 
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.masterchef.masterchef_backend.exception.StorageException;
+
 import jakarta.annotation.PostConstruct;
 
 import lombok.RequiredArgsConstructor;
@@ -32,6 +36,7 @@ import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequ
  * Upload recipe exports (JSON, PDF)
  * Generate presigned download URLs (15-minute expiration)
  * Store prompt templates and versions
+ * Archive segments of old recipe_generations partitions (streamed to and from disk)
  * Delete old exports
  * 
  * LocalStack: Files stored in local container
@@ -112,6 +117,51 @@ public class StorageService {
         }
     }
 
+    /**
+     * Upload a file from disk without loading it into memory (archive segments)
+     *
+     * @param key S3 object key
+     * @param file Local file to stream
+     * @param contentType MIME type
+     * @param contentEncoding e.g. "gzip", or null
+     */
+    public void uploadFile(String key, Path file, String contentType, String contentEncoding) {
+        log.info("Uploading file to S3: bucket={}, key={}", bucketName, key);
+
+        try {
+            PutObjectRequest putRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .contentEncoding(contentEncoding)
+                    .build();
+
+            s3Client.putObject(putRequest, RequestBody.fromFile(file));
+        } catch (S3Exception e) {
+            log.error("S3 file upload failed: key={}, {}", key, e.getMessage(), e);
+            throw new StorageException("Failed to upload " + key + " to S3", e);
+        }
+    }
+
+    /**
+     * Open an object for streaming reads; the caller must close the stream
+     *
+     * @param key S3 object key
+     */
+    public InputStream openObject(String key) {
+        try {
+            GetObjectRequest getRequest = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build();
+
+            return s3Client.getObject(getRequest);
+        } catch (S3Exception e) {
+            log.error("Failed to read S3 object: key={}, {}", key, e.getMessage(), e);
+            throw new StorageException("Failed to read " + key + " from S3", e);
+        }
+    }
+
     /**
      * Generate presigned download URL (expires in 15 minutes)
      * 
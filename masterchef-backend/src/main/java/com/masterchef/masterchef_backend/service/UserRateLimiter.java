@@ -0,0 +1,193 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.masterchef.masterchef_backend.config.RateLimitProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-user token-bucket rate limiter for LLM generation
+ *
+ * Design:
+ * Buckets live in a ConcurrentHashMap keyed by user id (lock-free reads, striped bins on insert)
+ * Each bucket is a single AtomicLong packing [42 bits last refill ms | 22 bits milli-tokens]
+ * Acquire is one map lookup plus a CAS loop: O(1) and allocation-free once the bucket exists
+ * Limits come from the user's plan (rate-limit.plans.*), so plan changes apply on the next call
+ * Idle buckets are evicted on a schedule; an evicted bucket was already full, so recreating it is lossless
+ */
+@Slf4j
+@Service
+public class UserRateLimiter {
+
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI_TOKENS = 1000L;
+    private static final String ANONYMOUS = "anonymous";
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>(256, 0.75f, 64);
+    private final Map<String, PlanLimits> plans = new HashMap<>();
+    private final PlanLimits defaultLimits;
+    private final long idleEvictionMs;
+    private final long originNanos = System.nanoTime();
+
+    public UserRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        String defaultPlan = properties.getDefaultPlan().toUpperCase(Locale.ROOT);
+        Map<String, RateLimitProperties.Plan> configured = new HashMap<>(properties.getPlans());
+        configured.putIfAbsent(defaultPlan, new RateLimitProperties.Plan());
+
+        long longestPeriodMs = 0;
+        for (Map.Entry<String, RateLimitProperties.Plan> entry : configured.entrySet()) {
+            String name = entry.getKey().toUpperCase(Locale.ROOT);
+            RateLimitProperties.Plan plan = entry.getValue();
+
+            long capacity = plan.getLimitForPeriod() * MILLI_TOKENS;
+            if (plan.getLimitForPeriod() < 1 || capacity > TOKEN_MASK) {
+                throw new IllegalArgumentException("rate-limit.plans." + name
+                        + ".limit-for-period must be between 1 and " + (TOKEN_MASK / MILLI_TOKENS));
+            }
+
+            Counter rejected = Counter.builder("llm.ratelimit.rejected")
+                    .description("LLM requests rejected by the per-user rate limiter")
+                    .tag("plan", name)
+                    .register(meterRegistry);
+
+            long periodMs = Math.max(1, plan.getRefreshPeriod().toMillis());
+            plans.put(name, new PlanLimits(capacity, periodMs, rejected));
+            longestPeriodMs = Math.max(longestPeriodMs, periodMs);
+
+            log.info("Rate limit plan {}: {} requests per {}", name, plan.getLimitForPeriod(), plan.getRefreshPeriod());
+        }
+
+        this.defaultLimits = plans.get(defaultPlan);
+        // Never evict a bucket that could still be partially drained
+        this.idleEvictionMs = Math.max(properties.getIdleEviction().toMillis(), longestPeriodMs);
+
+        Gauge.builder("llm.ratelimit.buckets", buckets, Map::size)
+                .description("Per-user rate limit buckets held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Try to take one request permit for the user
+     *
+     * @param userId User id (null shares a single anonymous bucket)
+     * @param plan User plan name (null or unknown uses the default plan)
+     * @return true if the request may proceed
+     */
+    public boolean tryAcquire(String userId, String plan) {
+        PlanLimits limits = resolve(plan);
+        long nowMs = nowMs();
+        String key = userId != null ? userId : ANONYMOUS;
+
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(pack(nowMs, limits.capacity)));
+        }
+
+        if (bucket.tryConsume(limits, nowMs)) {
+            return true;
+        }
+
+        limits.rejected.increment();
+        return false;
+    }
+
+    /**
+     * Drop buckets that have been idle long enough to be full again
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long nowMs = nowMs();
+        int before = buckets.size();
+
+        buckets.values().removeIf(bucket -> nowMs - lastRefill(bucket.get()) >= idleEvictionMs);
+
+        int evicted = before - buckets.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets, {} remaining", evicted, buckets.size());
+        }
+    }
+
+    private PlanLimits resolve(String plan) {
+        if (plan == null) {
+            return defaultLimits;
+        }
+        // Plan names are upper-cased at load, while users.plan may be stored in any case
+        PlanLimits limits = plans.get(plan.toUpperCase(Locale.ROOT));
+        return limits != null ? limits : defaultLimits;
+    }
+
+    private long nowMs() {
+        return (System.nanoTime() - originNanos) / 1_000_000L;
+    }
+
+    private static long pack(long refillMs, long milliTokens) {
+        return (refillMs << TOKEN_BITS) | milliTokens;
+    }
+
+    private static long lastRefill(long state) {
+        return state >>> TOKEN_BITS;
+    }
+
+    /**
+     * Immutable per-plan parameters, resolved once at startup
+     */
+    private record PlanLimits(long capacity, long periodMs, Counter rejected) {
+    }
+
+    /**
+     * Lock-free token bucket; the whole state is one CAS-able word
+     */
+    private static final class TokenBucket extends AtomicLong {
+
+        TokenBucket(long initialState) {
+            super(initialState);
+        }
+
+        boolean tryConsume(PlanLimits limits, long nowMs) {
+            for (;;) {
+                long state = get();
+                long last = lastRefill(state);
+                long tokens = state & TOKEN_MASK;
+                long elapsed = nowMs - last;
+
+                if (elapsed >= limits.periodMs) {
+                    tokens = limits.capacity;
+                    last = nowMs;
+                } else if (elapsed > 0) {
+                    long refill = elapsed * limits.capacity / limits.periodMs;
+                    if (refill > 0) {
+                        // Credit only the time actually converted into tokens so no fraction is lost
+                        last += refill * limits.periodMs / limits.capacity;
+                        tokens += refill;
+                    }
+                }
+
+                if (tokens >= limits.capacity) {
+                    tokens = limits.capacity;
+                    last = nowMs;
+                }
+
+                if (tokens < MILLI_TOKENS) {
+                    return false;
+                }
+
+                if (compareAndSet(state, pack(last, tokens - MILLI_TOKENS))) {
+                    return true;
+                }
+            }
+        }
+    }
+
+}
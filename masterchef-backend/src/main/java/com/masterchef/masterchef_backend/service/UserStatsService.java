@@ -0,0 +1,156 @@
+package com.masterchef.masterchef_backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.masterchef.masterchef_backend.dto.UserMetricsResponse;
+import com.masterchef.masterchef_backend.models.UserGenerationStats;
+import com.masterchef.masterchef_backend.repository.UserGenerationStatsRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-user metrics rollup (user_generation_stats)
+ *
+ * Design:
+ * Generation counters are folded per user in memory and upserted once per user per audit batch,
+ * inside the same transaction that inserts the recipe_generations rows (counters never drift)
+ * Users are upserted in id order so concurrent flushes from several nodes cannot deadlock
+ * Saved-recipe counters move in the transaction that saves or deletes the recipe
+ * Reads are a single primary-key lookup, independent of history size
+ * rebuild() recomputes rows from history for backfills and repairs
+ * (from live partitions only: months archived to S3 are no longer counted after a rebuild)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserStatsService {
+
+    private static final String UPSERT_GENERATIONS_SQL = "INSERT INTO user_generation_stats "
+            + "(user_id, total_generations, cache_hits, total_tokens_used, latency_samples, latency_total_ms, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, LOCALTIMESTAMP) "
+            + "ON CONFLICT (user_id) DO UPDATE SET "
+            + "total_generations = user_generation_stats.total_generations + EXCLUDED.total_generations, "
+            + "cache_hits = user_generation_stats.cache_hits + EXCLUDED.cache_hits, "
+            + "total_tokens_used = user_generation_stats.total_tokens_used + EXCLUDED.total_tokens_used, "
+            + "latency_samples = user_generation_stats.latency_samples + EXCLUDED.latency_samples, "
+            + "latency_total_ms = user_generation_stats.latency_total_ms + EXCLUDED.latency_total_ms, "
+            + "updated_at = LOCALTIMESTAMP";
+
+    private static final String REBUILD_SQL = "INSERT INTO user_generation_stats "
+            + "(user_id, total_generations, cache_hits, total_tokens_used, latency_samples, latency_total_ms, recipes_saved, updated_at) "
+            + "SELECT u.id, COALESCE(g.total_generations, 0), COALESCE(g.cache_hits, 0), COALESCE(g.total_tokens_used, 0), "
+            + "COALESCE(g.latency_samples, 0), COALESCE(g.latency_total_ms, 0), COALESCE(r.recipes_saved, 0), LOCALTIMESTAMP "
+            + "FROM users u "
+            + "LEFT JOIN (SELECT user_id, COUNT(*) AS total_generations, COUNT(*) FILTER (WHERE cached) AS cache_hits, "
+            + "SUM(tokens_used) AS total_tokens_used, "
+            + "COUNT(latency_ms) FILTER (WHERE status = 'SUCCESS') AS latency_samples, "
+            + "SUM(latency_ms) FILTER (WHERE status = 'SUCCESS') AS latency_total_ms "
+            + "FROM recipe_generations WHERE (CAST(? AS UUID) IS NULL OR user_id = ?) GROUP BY user_id) g ON g.user_id = u.id "
+            + "LEFT JOIN (SELECT user_id, COUNT(*) AS recipes_saved FROM recipes "
+            + "WHERE is_saved AND (CAST(? AS UUID) IS NULL OR user_id = ?) GROUP BY user_id) r ON r.user_id = u.id "
+            + "WHERE (CAST(? AS UUID) IS NULL OR u.id = ?) "
+            + "ON CONFLICT (user_id) DO UPDATE SET "
+            + "total_generations = EXCLUDED.total_generations, cache_hits = EXCLUDED.cache_hits, "
+            + "total_tokens_used = EXCLUDED.total_tokens_used, latency_samples = EXCLUDED.latency_samples, "
+            + "latency_total_ms = EXCLUDED.latency_total_ms, recipes_saved = EXCLUDED.recipes_saved, "
+            + "updated_at = LOCALTIMESTAMP";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserGenerationStatsRepository statsRepository;
+
+    /**
+     * Counters contributed by one audit batch for one user
+     */
+    private static final class Delta {
+        long generations;
+        long cacheHits;
+        long tokens;
+        long latencySamples;
+        long latencyTotalMs;
+    }
+
+    /**
+     * Fold an audit batch into the rollup; must run in the transaction that inserts the batch
+     */
+    public void applyGenerations(List<GenerationAuditRecord> batch) {
+        Map<UUID, Delta> deltas = new TreeMap<>();
+        for (GenerationAuditRecord record : batch) {
+            if (record.userId() == null) {
+                continue;
+            }
+            Delta delta = deltas.computeIfAbsent(record.userId(), id -> new Delta());
+            delta.generations++;
+            if (record.cached()) {
+                delta.cacheHits++;
+            }
+            if (record.tokensUsed() != null) {
+                delta.tokens += record.tokensUsed();
+            }
+            if ("SUCCESS".equals(record.status()) && record.latencyMs() != null) {
+                delta.latencySamples++;
+                delta.latencyTotalMs += record.latencyMs();
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((userId, delta) -> rows.add(new Object[] {
+                userId, delta.generations, delta.cacheHits, delta.tokens, delta.latencySamples, delta.latencyTotalMs
+        }));
+        jdbcTemplate.batchUpdate(UPSERT_GENERATIONS_SQL, rows);
+    }
+
+    /**
+     * Count a saved (delta = 1) or deleted (delta = -1) recipe; joins the caller's transaction
+     */
+    public void adjustRecipesSaved(UUID userId, long delta) {
+        statsRepository.adjustRecipesSaved(userId, delta);
+    }
+
+    /**
+     * Current metrics for a user: one primary-key read
+     */
+    @Transactional(readOnly = true)
+    public UserMetricsResponse getMetrics(UUID userId) {
+        UserGenerationStats stats = statsRepository.findById(userId)
+                .orElseGet(() -> UserGenerationStats.builder().userId(userId).build());
+
+        long total = stats.getTotalGenerations();
+        return UserMetricsResponse.builder()
+                .totalGenerations(total)
+                .cacheHits(stats.getCacheHits())
+                .totalRecipesSaved(stats.getRecipesSaved())
+                .totalTokensUsed(stats.getTotalTokensUsed())
+                .averageLatencyMs(stats.getLatencySamples() > 0
+                        ? (double) stats.getLatencyTotalMs() / stats.getLatencySamples() : 0.0)
+                .cacheHitRate(total > 0 ? (double) stats.getCacheHits() / total : 0.0)
+                .build();
+    }
+
+    /**
+     * Recompute rollup rows from history (one user, or everyone when userId is null)
+     *
+     * The table lock waits out in-flight increments and holds new ones until commit,
+     * so no concurrently written batch is counted twice or lost.
+     */
+    @Transactional
+    public int rebuild(UUID userId) {
+        jdbcTemplate.execute("LOCK TABLE user_generation_stats IN SHARE ROW EXCLUSIVE MODE");
+        int rows = jdbcTemplate.update(REBUILD_SQL, userId, userId, userId, userId, userId, userId);
+        log.info("Rebuilt user generation stats: user={}, rows={}", userId != null ? userId : "ALL", rows);
+        return rows;
+    }
+
+}
@@ -0,0 +1,38 @@
+-- MasterChef Backend - Content-addressed recipe bodies
+-- Version: 10
+-- Description: Move recipe JSONB content into recipe_bodies, shared by every recipe with the same content
+
+-- Bodies are immutable and keyed by the SHA-256 of their content. A cache hit served to
+-- many users produces one body and many thin recipes rows pointing at it; editing a
+-- recipe would write a new body and repoint only that recipe (copy-on-write).
+CREATE TABLE recipe_bodies(
+    body_hash VARCHAR(64) PRIMARY KEY, -- SHA-256 hex of instructions|ingredients|nutrition_info
+    cache_key VARCHAR(64), -- llm_cache.input_hash that first produced this body (cache rows expire, so no FK)
+    instructions JSONB,
+    ingredients JSONB,
+    nutrition_info JSONB,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE recipes ADD COLUMN body_hash VARCHAR(64);
+
+-- Backfill: hash existing content (PostgreSQL's jsonb text form; new bodies are hashed in the application)
+UPDATE recipes SET body_hash = encode(sha256(convert_to(
+    COALESCE(instructions::TEXT, 'null') || '|' ||
+    COALESCE(ingredients::TEXT, 'null') || '|' ||
+    COALESCE(nutrition_info::TEXT, 'null'), 'UTF8')), 'hex');
+
+INSERT INTO recipe_bodies(body_hash, instructions, ingredients, nutrition_info, created_at)
+SELECT DISTINCT ON (body_hash) body_hash, instructions, ingredients, nutrition_info, created_at
+FROM recipes
+ORDER BY body_hash, created_at;
+
+ALTER TABLE recipes ALTER COLUMN body_hash SET NOT NULL;
+ALTER TABLE recipes ADD CONSTRAINT fk_recipes_body_hash FOREIGN KEY (body_hash) REFERENCES recipe_bodies(body_hash);
+CREATE INDEX idx_recipes_body_hash ON recipes(body_hash); -- FK checks and orphan collection
+
+ALTER TABLE recipes DROP COLUMN instructions;
+ALTER TABLE recipes DROP COLUMN ingredients;
+ALTER TABLE recipes DROP COLUMN nutrition_info;
+
+COMMENT ON TABLE recipe_bodies IS 'Immutable, content-addressed recipe content shared across users';
@@ -0,0 +1,25 @@
+-- MasterChef Backend - Versioned prompt templates
+-- Version: 11
+-- Description: prompt_templates registry; audit rows reference a template instead of storing the prompt
+
+-- Registered at startup from classpath:prompts/{name}-v{version}.txt. A registered
+-- version is immutable: changed wording must ship as a new version.
+CREATE TABLE prompt_templates(
+    id VARCHAR(100) PRIMARY KEY, -- {name}@{version}, e.g. recipe@1
+    name VARCHAR(64) NOT NULL,
+    version INTEGER NOT NULL,
+    content_hash VARCHAR(64) NOT NULL, -- SHA-256 of the template text
+    template TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (name, version)
+);
+
+-- New audit rows carry template_id + prompt_params (the exact prompt is re-rendered on demand)
+-- and, for cache hits, cache_key instead of a copy of the raw response.
+-- prompt stays populated for rows written before this migration.
+ALTER TABLE recipe_generations ALTER COLUMN prompt DROP NOT NULL;
+ALTER TABLE recipe_generations ADD COLUMN template_id VARCHAR(100);
+ALTER TABLE recipe_generations ADD COLUMN prompt_params JSONB;
+ALTER TABLE recipe_generations ADD COLUMN cache_key VARCHAR(64);
+
+COMMENT ON TABLE prompt_templates IS 'Versioned LLM prompt templates referenced by recipe_generations';
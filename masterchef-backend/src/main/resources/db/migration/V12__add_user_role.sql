@@ -0,0 +1,7 @@
+-- MasterChef Backend - User roles
+-- Version: 12
+-- Description: Add an authorization role to users (ADMIN unlocks /api/v1/admin/**)
+
+ALTER TABLE users ADD COLUMN role VARCHAR(20) NOT NULL DEFAULT 'USER';
+
+COMMENT ON COLUMN users.role IS 'USER or ADMIN; carried in the access token, changes apply from the next token refresh';
@@ -0,0 +1,17 @@
+-- MasterChef Backend - Per-user index of archived generation segments
+-- Version: 13
+-- Description: Which S3 segments of an archived month hold a user's rows, so reading one user's history
+--              downloads only those segments instead of the whole month
+
+CREATE TABLE recipe_generation_archive_users(
+    user_id UUID NOT NULL,
+    partition_name VARCHAR(64) NOT NULL REFERENCES recipe_generation_archives(partition_name) ON DELETE CASCADE,
+    segments INTEGER[] NOT NULL,     -- Segment numbers holding the user's rows, ascending
+    segment_rows INTEGER[] NOT NULL, -- The user's row count in each of those segments
+    PRIMARY KEY (user_id, partition_name)
+);
+
+-- Months archived before the index existed cannot be read per user
+ALTER TABLE recipe_generation_archives ADD COLUMN user_indexed BOOLEAN NOT NULL DEFAULT FALSE;
+
+COMMENT ON TABLE recipe_generation_archive_users IS 'Per-user segment index of archived recipe_generations months';
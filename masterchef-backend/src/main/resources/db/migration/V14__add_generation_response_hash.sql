@@ -0,0 +1,10 @@
+-- MasterChef Backend - Response hash for cache-hit audit rows
+-- Version: 14
+-- Description: Cache-hit rows keep the SHA-256 of the response they were served
+
+-- Cache hits reference llm_cache by cache_key instead of copying the response, but a
+-- regeneration replaces that entry in place. The admin prompt view only resolves a row
+-- through the cache while the entry's response still matches response_hash.
+ALTER TABLE recipe_generations ADD COLUMN response_hash VARCHAR(64);
+
+COMMENT ON COLUMN recipe_generations.response_hash IS 'SHA-256 of the cached response a cache hit was served';
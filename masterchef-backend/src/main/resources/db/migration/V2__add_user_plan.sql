@@ -0,0 +1,7 @@
+-- MasterChef Backend - User plans
+-- Version: 2
+-- Description: Add subscription plan to users (drives per-user LLM rate limits)
+
+ALTER TABLE users ADD COLUMN plan VARCHAR(50) NOT NULL DEFAULT 'FREE';
+
+COMMENT ON COLUMN users.plan IS 'Subscription plan name, maps to rate-limit.plans.* in application.yml';
@@ -0,0 +1,15 @@
+-- MasterChef Backend - Cluster-wide LLM permits
+-- Version: 3
+-- Description: Lease table for the global LLM concurrency budget shared by all backend tasks
+
+-- One row per permit slot; rows are seeded at startup from llm.cluster-permits.global-budget
+-- A slot is free when holder_id is NULL or its lease has expired (crashed node)
+CREATE TABLE llm_permits(
+    slot INTEGER PRIMARY KEY,
+    holder_id VARCHAR(100), -- Node that currently leases the slot
+    lease_expires_at TIMESTAMP -- Renewed by the holder's heartbeat
+);
+CREATE INDEX idx_llm_permits_holder_id ON llm_permits(holder_id);
+
+COMMENT ON TABLE llm_permits IS 'Leased LLM concurrency permits shared across backend nodes';
+COMMENT ON COLUMN llm_permits.lease_expires_at IS 'Expired leases are reclaimable by any node (crash recovery)';
@@ -0,0 +1,32 @@
+-- MasterChef Backend - Asynchronous generation jobs
+-- Version: 4
+-- Description: Durable job queue for POST /api/v1/recipes/generate/async
+
+-- Jobs are claimed by worker nodes with FOR UPDATE SKIP LOCKED
+-- RUNNING jobs whose lock expired (crashed worker) are reclaimed by any node
+CREATE TABLE generation_jobs(
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    request JSONB NOT NULL, -- Serialized RecipeRequest
+    status VARCHAR(20) NOT NULL, -- QUEUED, RUNNING, SUCCEEDED, FAILED
+    attempts INTEGER NOT NULL DEFAULT 0,
+    max_attempts INTEGER NOT NULL DEFAULT 3,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, -- Retry backoff
+    locked_by VARCHAR(100), -- Worker node currently running the job
+    locked_until TIMESTAMP,
+    recipe_id UUID REFERENCES recipes(id) ON DELETE SET NULL, -- Result once SUCCEEDED
+    error_message TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP
+);
+CREATE INDEX idx_generation_jobs_queued ON generation_jobs(next_attempt_at) WHERE status = 'QUEUED';
+CREATE INDEX idx_generation_jobs_running ON generation_jobs(locked_until) WHERE status = 'RUNNING';
+CREATE INDEX idx_generation_jobs_user_id ON generation_jobs(user_id);
+
+CREATE TRIGGER update_generation_jobs_updated_at
+    BEFORE UPDATE ON generation_jobs
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+COMMENT ON TABLE generation_jobs IS 'Durable queue of asynchronous recipe generation jobs';
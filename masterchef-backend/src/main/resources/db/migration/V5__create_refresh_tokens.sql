@@ -0,0 +1,35 @@
+-- MasterChef Backend - Refresh token rotation
+-- Version: 5
+-- Description: Refresh token families and family revocations
+
+-- Every login starts a token family; each refresh marks the presented token used
+-- and issues its successor in the same family. Presenting a used token again
+-- (replay of a stolen token) revokes the whole family.
+CREATE TABLE refresh_tokens(
+    jti UUID PRIMARY KEY, -- JWT id claim of the refresh token
+    family_id UUID NOT NULL, -- Login session the token belongs to
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    parent_jti UUID, -- Token this one was rotated from (NULL for the login token)
+    expires_at TIMESTAMP NOT NULL,
+    used_at TIMESTAMP, -- Set when rotated; a second use means reuse
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_refresh_tokens_family_id ON refresh_tokens(family_id);
+CREATE INDEX idx_refresh_tokens_user_id ON refresh_tokens(user_id);
+CREATE INDEX idx_refresh_tokens_expires_at ON refresh_tokens(expires_at);
+
+-- Revoked families; every node polls this table into its in-memory revocation filter
+CREATE TABLE token_family_revocations(
+    id BIGSERIAL PRIMARY KEY,
+    family_id UUID NOT NULL,
+    user_id UUID REFERENCES users(id) ON DELETE CASCADE,
+    reason VARCHAR(50) NOT NULL, -- LOGOUT, REUSE
+    revoked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL -- No token of the family can outlive this
+);
+CREATE INDEX idx_token_family_revocations_family_id ON token_family_revocations(family_id);
+CREATE INDEX idx_token_family_revocations_revoked_at ON token_family_revocations(revoked_at);
+CREATE INDEX idx_token_family_revocations_expires_at ON token_family_revocations(expires_at);
+
+COMMENT ON TABLE refresh_tokens IS 'Issued refresh tokens, rotated on every refresh';
+COMMENT ON TABLE token_family_revocations IS 'Revoked token families (logout, refresh token reuse)';
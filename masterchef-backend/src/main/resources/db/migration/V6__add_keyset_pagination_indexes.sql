@@ -0,0 +1,8 @@
+-- MasterChef Backend - Keyset pagination
+-- Version: 6
+-- Description: Composite indexes for cursor pagination on (created_at, id) per user
+
+-- Listings filter by user and walk (created_at, id) backwards from the cursor;
+-- with user_id leading, every page is a single index range scan regardless of depth
+CREATE INDEX idx_recipes_user_created_id ON recipes(user_id, created_at DESC, id DESC);
+CREATE INDEX idx_recipe_generations_user_created_id ON recipe_generations(user_id, created_at DESC, id DESC);
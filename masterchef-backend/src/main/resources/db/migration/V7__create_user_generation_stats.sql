@@ -0,0 +1,47 @@
+-- MasterChef Backend - Per-user metrics rollup
+-- Version: 7
+-- Description: user_generation_stats, maintained incrementally instead of aggregating history per request
+
+-- One row per user. Generation counters are incremented by the audit writer in the same
+-- transaction as each recipe_generations batch; recipes_saved moves with recipe saves/deletes.
+-- GET /api/v1/recipes/metrics is a single primary-key read.
+CREATE TABLE user_generation_stats(
+    user_id UUID PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    total_generations BIGINT NOT NULL DEFAULT 0,
+    cache_hits BIGINT NOT NULL DEFAULT 0,
+    total_tokens_used BIGINT NOT NULL DEFAULT 0,
+    latency_samples BIGINT NOT NULL DEFAULT 0, -- SUCCESS generations with a latency (average denominator)
+    latency_total_ms BIGINT NOT NULL DEFAULT 0,
+    recipes_saved BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Backfill from existing history
+INSERT INTO user_generation_stats(user_id, total_generations, cache_hits, total_tokens_used,
+                                  latency_samples, latency_total_ms, recipes_saved)
+SELECT u.id,
+       COALESCE(g.total_generations, 0),
+       COALESCE(g.cache_hits, 0),
+       COALESCE(g.total_tokens_used, 0),
+       COALESCE(g.latency_samples, 0),
+       COALESCE(g.latency_total_ms, 0),
+       COALESCE(r.recipes_saved, 0)
+FROM users u
+LEFT JOIN (
+    SELECT user_id,
+           COUNT(*) AS total_generations,
+           COUNT(*) FILTER (WHERE cached) AS cache_hits,
+           SUM(tokens_used) AS total_tokens_used,
+           COUNT(latency_ms) FILTER (WHERE status = 'SUCCESS') AS latency_samples,
+           SUM(latency_ms) FILTER (WHERE status = 'SUCCESS') AS latency_total_ms
+    FROM recipe_generations
+    GROUP BY user_id
+) g ON g.user_id = u.id
+LEFT JOIN (
+    SELECT user_id, COUNT(*) AS recipes_saved
+    FROM recipes
+    WHERE is_saved
+    GROUP BY user_id
+) r ON r.user_id = u.id;
+
+COMMENT ON TABLE user_generation_stats IS 'Per-user generation/recipe counters, updated incrementally';
@@ -0,0 +1,30 @@
+-- MasterChef Backend - Generation analytics rollups
+-- Version: 8
+-- Description: Time-bucketed generation rollups and a BRIN index for raw drill-downs
+
+-- Pre-aggregated per minute / hour / day, fed by the audit writer in the same transaction
+-- as each recipe_generations batch. Admin time-series queries read only this table.
+CREATE TABLE generation_rollups(
+    granularity VARCHAR(10) NOT NULL, -- MINUTE, HOUR, DAY
+    bucket_start TIMESTAMP NOT NULL,
+    model_used VARCHAR(100) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    cached BOOLEAN NOT NULL,
+    generations BIGINT NOT NULL DEFAULT 0,
+    tokens_used BIGINT NOT NULL DEFAULT 0,
+    cost_cents BIGINT NOT NULL DEFAULT 0,
+    latency_samples BIGINT NOT NULL DEFAULT 0,
+    latency_total_ms BIGINT NOT NULL DEFAULT 0,
+    latency_max_ms BIGINT NOT NULL DEFAULT 0,
+    latency_histogram BIGINT[] NOT NULL, -- Counts per fixed latency bucket (mergeable p50/p95 sketch)
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (granularity, bucket_start, model_used, status, cached)
+);
+
+-- Raw drill-downs by time window: recipe_generations is append-only and roughly
+-- ordered by created_at, so a BRIN index is tiny and nearly free to maintain.
+-- It replaces the B-tree on created_at; per-user reads use idx_recipe_generations_user_created_id.
+CREATE INDEX idx_recipe_generations_created_at_brin ON recipe_generations USING BRIN(created_at);
+DROP INDEX IF EXISTS idx_recipe_generations_created_at;
+
+COMMENT ON TABLE generation_rollups IS 'Per-minute/hour/day generation aggregates for admin analytics';
@@ -0,0 +1,82 @@
+-- MasterChef Backend - Monthly partitioning of recipe_generations
+-- Version: 9
+-- Description: Range-partition recipe_generations by created_at; archive catalogue for dropped months
+
+-- Partitions are named recipe_generations_yYYYYmMM and created ahead of time by
+-- ensure_recipe_generations_partition() (called from GenerationArchiveService).
+-- There is deliberately no DEFAULT partition: it would block creating a month that already has rows.
+CREATE OR REPLACE FUNCTION ensure_recipe_generations_partition(month_start DATE) RETURNS TEXT AS $$
+DECLARE
+    start_date DATE := date_trunc('month', month_start)::DATE;
+    partition_name TEXT := 'recipe_generations_y' || to_char(start_date, 'YYYY') || 'm' || to_char(start_date, 'MM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF recipe_generations FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, start_date, (start_date + INTERVAL '1 month')::DATE);
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE recipe_generations RENAME TO recipe_generations_legacy;
+
+CREATE TABLE recipe_generations(
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    user_id UUID REFERENCES users(id) ON DELETE SET NULL,
+    ingredients TEXT[] NOT NULL,
+    dietary_preferences TEXT[] DEFAULT '{}',
+    prompt TEXT NOT NULL,
+    raw_response TEXT,
+    model_used VARCHAR(100) NOT NULL,
+    tokens_used INTEGER,
+    cost_cents INTEGER DEFAULT 0,
+    cached BOOLEAN DEFAULT false,
+    latency_ms BIGINT,
+    status VARCHAR(50) NOT NULL,
+    error_message TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) PARTITION BY RANGE (created_at);
+
+-- One partition per month from the oldest existing row through three months ahead
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE(
+        (SELECT MIN(created_at) FROM recipe_generations_legacy), CURRENT_TIMESTAMP))::DATE;
+BEGIN
+    WHILE month_start <= (date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months')::DATE LOOP
+        PERFORM ensure_recipe_generations_partition(month_start);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END;
+$$;
+
+INSERT INTO recipe_generations(id, user_id, ingredients, dietary_preferences, prompt, raw_response, model_used,
+                               tokens_used, cost_cents, cached, latency_ms, status, error_message, created_at)
+SELECT id, user_id, ingredients, dietary_preferences, prompt, raw_response, model_used,
+       tokens_used, cost_cents, cached, latency_ms, status, error_message, created_at
+FROM recipe_generations_legacy;
+
+DROP TABLE recipe_generations_legacy;
+
+-- Indexes are built after the copy and cascade to every partition.
+-- The primary key must include the partition key. The plain user_id and cached
+-- indexes are dropped: the composite covers user_id lookups, and a boolean index was never selective.
+ALTER TABLE recipe_generations ADD PRIMARY KEY (id, created_at);
+CREATE INDEX idx_recipe_generations_user_created_id ON recipe_generations(user_id, created_at DESC, id DESC);
+CREATE INDEX idx_recipe_generations_created_at_brin ON recipe_generations USING BRIN(created_at);
+CREATE INDEX idx_recipe_generations_status ON recipe_generations(status);
+
+-- Months moved to S3 (gzip NDJSON segments) and dropped from the database
+CREATE TABLE recipe_generation_archives(
+    partition_name VARCHAR(64) PRIMARY KEY,
+    month_start DATE NOT NULL UNIQUE,
+    status VARCHAR(20) NOT NULL, -- ARCHIVING, DROPPED
+    s3_prefix VARCHAR(255) NOT NULL,
+    segment_count INTEGER NOT NULL DEFAULT 0,
+    row_count BIGINT NOT NULL DEFAULT 0,
+    size_bytes BIGINT NOT NULL DEFAULT 0, -- Compressed
+    claimed_by VARCHAR(100), -- Node running the archival (lease, see claimed_at)
+    claimed_at TIMESTAMP,
+    archived_at TIMESTAMP
+);
+
+COMMENT ON TABLE recipe_generations IS 'Audit trail of LLM calls, partitioned by month';
+COMMENT ON TABLE recipe_generation_archives IS 'recipe_generations months archived to S3 and dropped';
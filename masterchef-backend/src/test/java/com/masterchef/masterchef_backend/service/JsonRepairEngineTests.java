@@ -0,0 +1,120 @@
+package com.masterchef.masterchef_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JsonRepairEngineTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private MeterRegistry meterRegistry;
+	private JsonRepairEngine engine;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		engine = new JsonRepairEngine(meterRegistry);
+	}
+
+	@Test
+	void stripsProseAndMarkdownFences() throws Exception {
+		String output = "Here is your recipe:\n```json\n{\"title\": \"Soup\"}\n```\nEnjoy!";
+
+		assertRepairsTo(output, "{\"title\": \"Soup\"}");
+	}
+
+	@Test
+	void dropsTrailingCommas() throws Exception {
+		assertRepairsTo("{\"tags\": [\"a\", \"b\",], \"time\": 10,}", "{\"tags\": [\"a\", \"b\"], \"time\": 10}");
+	}
+
+	@Test
+	void fixesMismatchedClosingBracket() throws Exception {
+		assertRepairsTo("{\"steps\": [\"chop\", \"boil\"}", "{\"steps\": [\"chop\", \"boil\"]}");
+	}
+
+	@Test
+	void convertsSingleQuotedStrings() throws Exception {
+		assertRepairsTo("{'title': 'Soup', 'tags': ['hot']}", "{\"title\": \"Soup\", \"tags\": [\"hot\"]}");
+	}
+
+	@Test
+	void quotesUnquotedKeys() throws Exception {
+		assertRepairsTo("{title: \"Soup\", total_time: 20}", "{\"title\": \"Soup\", \"total_time\": 20}");
+	}
+
+	@Test
+	void escapesUnescapedQuotesInsideStrings() throws Exception {
+		JsonNode root = assertRepairsTo("{\"title\": \"The \"best\" soup\", \"servings\": 2}",
+				"{\"title\": \"The \\\"best\\\" soup\", \"servings\": 2}");
+
+		assertThat(root.get("title").asText()).isEqualTo("The \"best\" soup");
+	}
+
+	@Test
+	void escapesRawNewlinesInsideStrings() throws Exception {
+		JsonNode root = assertRepairsTo("{\"notes\": \"line one\nline two\"}", "{\"notes\": \"line one\\nline two\"}");
+
+		assertThat(root.get("notes").asText()).isEqualTo("line one\nline two");
+	}
+
+	@Test
+	void closesTruncatedStringsArraysAndObjects() throws Exception {
+		assertRepairsTo("{\"title\": \"Soup\", \"steps\": [\"chop onions\", \"boi",
+				"{\"title\": \"Soup\", \"steps\": [\"chop onions\", \"boi\"]}");
+	}
+
+	@Test
+	void givesDanglingKeyANullValue() throws Exception {
+		assertRepairsTo("{\"title\": \"Soup\", \"cuisine\"", "{\"title\": \"Soup\", \"cuisine\": null}");
+	}
+
+	@Test
+	void givesDanglingColonANullValue() throws Exception {
+		assertRepairsTo("{\"title\": \"Soup\", \"cuisine\":", "{\"title\": \"Soup\", \"cuisine\": null}");
+	}
+
+	@Test
+	void returnsNullForTextWithoutJson() {
+		String output = "I cannot help with that request.";
+
+		assertThat(JsonRepairEngine.repair(output)).isNull();
+		assertThat(engine.parse(output, 1200L)).isNull();
+		assertThat(meterRegistry.get("llm.output.repair").tag("result", "failed").counter().count()).isEqualTo(1.0);
+	}
+
+	@Test
+	void leavesValidJsonUnchanged() throws Exception {
+		String output = "{\"title\": \"Soup\", \"tags\": [\"hot\", \"quick\"], "
+				+ "\"nutrition\": {\"calories\": 250, \"fat\": 9.5}, \"vegan\": true, \"note\": null}";
+
+		assertThat(JsonRepairEngine.repair(output)).isEqualTo(output);
+		assertThat(engine.parse(output, 1200L)).isEqualTo(objectMapper.readTree(output));
+		assertThat(meterRegistry.get("llm.output.repair").tag("result", "clean").counter().count()).isEqualTo(1.0);
+		assertThat(meterRegistry.get("llm.output.repair.saved").timer().count()).isZero();
+	}
+
+	/**
+	 * The repaired text must be valid JSON equal to the expected document, and parse must accept the output as repaired
+	 */
+	private JsonNode assertRepairsTo(String output, String expectedJson) throws Exception {
+		String repaired = JsonRepairEngine.repair(output);
+
+		assertThat(repaired).isNotNull();
+		JsonNode expected = objectMapper.readTree(expectedJson);
+		assertThat(objectMapper.readTree(repaired)).isEqualTo(expected);
+
+		JsonNode parsed = engine.parse(output, 1200L);
+		assertThat(parsed).isEqualTo(expected);
+		return parsed;
+	}
+
+}